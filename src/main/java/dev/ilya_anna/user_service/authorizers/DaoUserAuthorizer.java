@@ -1,6 +1,6 @@
 package dev.ilya_anna.user_service.authorizers;
 
-import dev.ilya_anna.user_service.security.DaoUserDetails;
+import dev.ilya_anna.user_service.security.JwtUserDetails;
 import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.core.Authentication;
@@ -17,9 +17,9 @@ public class DaoUserAuthorizer implements AuthorizationManager<RequestAuthorizat
     public AuthorizationDecision check(Supplier<Authentication> authenticationSupplier,
                                        RequestAuthorizationContext authorizationContext) {
         Authentication authentication = authenticationSupplier.get();
-        DaoUserDetails userDetails = (DaoUserDetails) authentication.getPrincipal();
+        JwtUserDetails userDetails = (JwtUserDetails) authentication.getPrincipal();
         String userId = authorizationContext.getVariables().get("userId");
-        String requestSenderId = userDetails.getUser().getId();
+        String requestSenderId = userDetails.getUserId();
         return new AuthorizationDecision(userId.equals(requestSenderId));
     }
 }
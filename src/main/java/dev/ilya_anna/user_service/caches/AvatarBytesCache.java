@@ -0,0 +1,223 @@
+package dev.ilya_anna.user_service.caches;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import dev.ilya_anna.user_service.entities.AvatarMetadata;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+public class AvatarBytesCache {
+    public static final String CACHE_NAME = "avatarBytes";
+    public static final String MEMORY_TIER = "memory";
+    public static final String DISK_TIER = "disk";
+    public static final String STORAGE_TIER = "storage";
+
+    private static final String FILE_SUFFIX = ".avatar";
+    private static final int ENTRY_OVERHEAD = 256;
+
+    @Value("${app.avatar.cache.memory.max-size:268435456}")
+    private long memoryMaxSize;
+
+    @Value("${app.avatar.cache.max-object-size:2097152}")
+    private long maxObjectSize;
+
+    @Value("${app.avatar.cache.disk.directory:}")
+    private String diskDirectory;
+
+    @Value("${app.avatar.cache.disk.max-size:2147483648}")
+    private long diskMaxSize;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, CachedAvatar> memoryTier;
+    private Cache<String, Long> diskTier;
+    private Path diskPath;
+    private ExecutorService diskWriter;
+    private Counter diskHits;
+    private Counter diskMisses;
+
+    @PostConstruct
+    public void init() throws IOException {
+        memoryTier = Caffeine.newBuilder()
+                .maximumWeight(memoryMaxSize)
+                .weigher((String avatarId, CachedAvatar avatar) -> avatar.content().capacity() + ENTRY_OVERHEAD)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, memoryTier, CACHE_NAME);
+
+        if (!diskDirectory.isBlank()) {
+            diskPath = Path.of(diskDirectory);
+            Files.createDirectories(diskPath);
+            diskWriter = Executors.newVirtualThreadPerTaskExecutor();
+            diskTier = Caffeine.newBuilder()
+                    .maximumWeight(diskMaxSize)
+                    .weigher((String fileName, Long size) -> (int) Math.min(size, Integer.MAX_VALUE))
+                    .removalListener((String fileName, Long size, RemovalCause cause) -> {
+                        if (cause != RemovalCause.REPLACED) {
+                            deleteFile(fileName);
+                        }
+                    })
+                    .build();
+            indexDiskTier();
+            diskHits = meterRegistry.counter("avatar.cache.disk.requests", "result", "hit");
+            diskMisses = meterRegistry.counter("avatar.cache.disk.requests", "result", "miss");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (diskWriter != null) {
+            diskWriter.shutdown();
+        }
+    }
+
+    public boolean isCacheable(long contentLength) {
+        return contentLength <= maxObjectSize;
+    }
+
+    public CachedAvatar get(String avatarId) {
+        CachedAvatar cachedAvatar = memoryTier.getIfPresent(avatarId);
+        if (cachedAvatar != null || diskTier == null) {
+            return cachedAvatar;
+        }
+
+        cachedAvatar = readFromDisk(avatarId);
+        if (cachedAvatar == null) {
+            diskMisses.increment();
+            return null;
+        }
+        diskHits.increment();
+        memoryTier.put(avatarId, new CachedAvatar(cachedAvatar.metadata(), cachedAvatar.content(), MEMORY_TIER));
+        return cachedAvatar;
+    }
+
+    public CachedAvatar put(AvatarMetadata avatarMetadata, byte[] content) {
+        ByteBuffer buffer = ByteBuffer.wrap(content).asReadOnlyBuffer();
+        CachedAvatar cachedAvatar = new CachedAvatar(avatarMetadata, buffer, MEMORY_TIER);
+        memoryTier.put(avatarMetadata.getId(), cachedAvatar);
+        if (diskTier != null) {
+            diskWriter.execute(() -> writeToDisk(avatarMetadata, content));
+        }
+        return new CachedAvatar(avatarMetadata, buffer, STORAGE_TIER);
+    }
+
+    public void evict(String avatarId) {
+        memoryTier.invalidate(avatarId);
+        if (diskTier != null) {
+            diskTier.invalidate(fileName(avatarId));
+        }
+    }
+
+    public void recordServed(String tier, long bytes) {
+        meterRegistry.counter("avatar.cache.bytes.served", "tier", tier).increment(bytes);
+    }
+
+    private CachedAvatar readFromDisk(String avatarId) {
+        String fileName = fileName(avatarId);
+        if (diskTier.getIfPresent(fileName) == null) {
+            return null;
+        }
+        try {
+            ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(diskPath.resolve(fileName)));
+            int headerLength = file.getInt();
+            byte[] header = new byte[headerLength];
+            file.get(header);
+            String[] fields = new String(header, StandardCharsets.UTF_8).split("\n", -1);
+            AvatarMetadata avatarMetadata = AvatarMetadata.builder()
+                    .id(avatarId)
+                    .avatarPath(fields[0])
+                    .contentType(fields[1])
+                    .etag(fields[2])
+                    .contentLength((long) file.remaining())
+                    .build();
+            return new CachedAvatar(avatarMetadata, file.slice().asReadOnlyBuffer(), DISK_TIER);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Dropping unreadable avatar cache file {}", fileName, e);
+            diskTier.invalidate(fileName);
+            return null;
+        }
+    }
+
+    private void writeToDisk(AvatarMetadata avatarMetadata, byte[] content) {
+        String fileName = fileName(avatarMetadata.getId());
+        byte[] header = String.join("\n", avatarMetadata.getAvatarPath(), avatarMetadata.getContentType(),
+                avatarMetadata.getEtag()).getBytes(StandardCharsets.UTF_8);
+        Path target = diskPath.resolve(fileName);
+        try {
+            Path temp = Files.createTempFile(diskPath, fileName, ".tmp");
+            ByteBuffer[] buffers = {
+                    ByteBuffer.allocate(Integer.BYTES).putInt(0, header.length),
+                    ByteBuffer.wrap(header),
+                    ByteBuffer.wrap(content)};
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffers[buffers.length - 1].hasRemaining()) {
+                    channel.write(buffers);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            diskTier.put(fileName, Files.size(target));
+        } catch (IOException e) {
+            log.warn("Failed to write avatar {} to disk cache", avatarMetadata.getId(), e);
+        }
+    }
+
+    private void indexDiskTier() throws IOException {
+        try (Stream<Path> files = Files.list(diskPath)) {
+            files.forEach(file -> {
+                String fileName = file.getFileName().toString();
+                try {
+                    if (fileName.endsWith(FILE_SUFFIX)) {
+                        diskTier.put(fileName, Files.size(file));
+                    } else {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (IOException e) {
+                    log.warn("Failed to index avatar cache file {}", file, e);
+                }
+            });
+        }
+    }
+
+    private void deleteFile(String fileName) {
+        try {
+            Files.deleteIfExists(diskPath.resolve(fileName));
+        } catch (IOException e) {
+            log.warn("Failed to delete avatar cache file {}", fileName, e);
+        }
+    }
+
+    private static String fileName(String avatarId) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(avatarId.getBytes(StandardCharsets.UTF_8))) + FILE_SUFFIX;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+}
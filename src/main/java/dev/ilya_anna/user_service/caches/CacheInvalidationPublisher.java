@@ -0,0 +1,23 @@
+package dev.ilya_anna.user_service.caches;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+public class CacheInvalidationPublisher {
+    public static final String SEPARATOR = "\n";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+
+    public CacheInvalidationPublisher(StringRedisTemplate redisTemplate, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    public void publishEvict(String cacheName, Object key) {
+        redisTemplate.convertAndSend(channel, cacheName + SEPARATOR + key);
+    }
+
+    public void publishClear(String cacheName) {
+        redisTemplate.convertAndSend(channel, cacheName);
+    }
+}
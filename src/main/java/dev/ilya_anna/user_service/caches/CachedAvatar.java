@@ -0,0 +1,16 @@
+package dev.ilya_anna.user_service.caches;
+
+import dev.ilya_anna.user_service.entities.AvatarMetadata;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+public record CachedAvatar(AvatarMetadata metadata, ByteBuffer content, String tier) {
+
+    public InputStream openStream(long offset, long length) {
+        ByteBuffer slice = content.duplicate();
+        slice.position((int) offset);
+        slice.limit((int) (offset + length));
+        return new ByteBufferInputStream(slice);
+    }
+}
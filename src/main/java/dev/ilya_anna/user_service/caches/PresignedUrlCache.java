@@ -0,0 +1,61 @@
+package dev.ilya_anna.user_service.caches;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Component
+public class PresignedUrlCache {
+    public static final String CACHE_NAME = "presignedAvatarUrls";
+
+    @Value("${app.avatar.delivery.url-ttl:300}")
+    private long urlTtl;
+
+    @Value("${app.avatar.delivery.url-refresh-before:60}")
+    private long refreshBefore;
+
+    @Value("${app.avatar.delivery.url-cache-size:100000}")
+    private long maxSize;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, String> urls;
+
+    @PostConstruct
+    public void init() {
+        if (refreshBefore >= urlTtl) {
+            throw new IllegalStateException("app.avatar.delivery.url-refresh-before must be less than url-ttl");
+        }
+        urls = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(urlTtl - refreshBefore, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, urls, CACHE_NAME);
+    }
+
+    public String get(String avatarId, Supplier<String> presigner) {
+        return urls.get(avatarId, key -> presigner.get());
+    }
+
+    public long getUrlTtl() {
+        return urlTtl;
+    }
+
+    public long getRefreshBefore() {
+        return refreshBefore;
+    }
+
+    public void evict(String avatarId) {
+        urls.invalidate(avatarId);
+    }
+}
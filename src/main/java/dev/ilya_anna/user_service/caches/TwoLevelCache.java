@@ -0,0 +1,122 @@
+package dev.ilya_anna.user_service.caches;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+
+import java.util.concurrent.Callable;
+
+public class TwoLevelCache implements Cache {
+    private final String name;
+    private final Cache localCache;
+    private final Cache remoteCache;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final CacheErrorHandler errorHandler;
+
+    public TwoLevelCache(String name, Cache localCache, Cache remoteCache,
+                         CacheInvalidationPublisher invalidationPublisher, CacheErrorHandler errorHandler) {
+        this.name = name;
+        this.localCache = localCache;
+        this.remoteCache = remoteCache;
+        this.invalidationPublisher = invalidationPublisher;
+        this.errorHandler = errorHandler;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper valueWrapper = localCache.get(key);
+        if (valueWrapper != null) {
+            return valueWrapper;
+        }
+        try {
+            valueWrapper = remoteCache.get(key);
+        } catch (RuntimeException e) {
+            errorHandler.handleCacheGetError(e, remoteCache, key);
+            return null;
+        }
+        if (valueWrapper != null) {
+            localCache.put(key, valueWrapper.get());
+        }
+        return valueWrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper valueWrapper = get(key);
+        if (valueWrapper == null) {
+            return null;
+        }
+        Object value = valueWrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper valueWrapper = get(key);
+        if (valueWrapper != null) {
+            return (T) valueWrapper.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        try {
+            remoteCache.put(key, value);
+        } catch (RuntimeException e) {
+            errorHandler.handleCachePutError(e, remoteCache, key, value);
+        }
+        localCache.put(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        try {
+            remoteCache.evict(key);
+        } catch (RuntimeException e) {
+            errorHandler.handleCacheEvictError(e, remoteCache, key);
+        }
+        localCache.evict(key);
+        try {
+            invalidationPublisher.publishEvict(name, key);
+        } catch (RuntimeException e) {
+            errorHandler.handleCacheEvictError(e, this, key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        try {
+            remoteCache.clear();
+        } catch (RuntimeException e) {
+            errorHandler.handleCacheClearError(e, remoteCache);
+        }
+        localCache.clear();
+        try {
+            invalidationPublisher.publishClear(name);
+        } catch (RuntimeException e) {
+            errorHandler.handleCacheClearError(e, this);
+        }
+    }
+}
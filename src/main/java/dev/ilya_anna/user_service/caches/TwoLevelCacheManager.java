@@ -0,0 +1,52 @@
+package dev.ilya_anna.user_service.caches;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+
+import java.util.Collection;
+import java.util.List;
+
+public class TwoLevelCacheManager extends AbstractTransactionSupportingCacheManager {
+    private final CacheManager localCacheManager;
+    private final CacheManager remoteCacheManager;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final CacheErrorHandler errorHandler;
+
+    public TwoLevelCacheManager(CacheManager localCacheManager, CacheManager remoteCacheManager,
+                                CacheInvalidationPublisher invalidationPublisher, CacheErrorHandler errorHandler) {
+        this.localCacheManager = localCacheManager;
+        this.remoteCacheManager = remoteCacheManager;
+        this.invalidationPublisher = invalidationPublisher;
+        this.errorHandler = errorHandler;
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return List.of();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return new TwoLevelCache(name,
+                localCacheManager.getCache(name),
+                remoteCacheManager.getCache(name),
+                invalidationPublisher,
+                errorHandler);
+    }
+
+    public void evictLocal(String cacheName, String key) {
+        Cache localCache = localCacheManager.getCache(cacheName);
+        if (localCache != null) {
+            localCache.evict(key);
+        }
+    }
+
+    public void clearLocal(String cacheName) {
+        Cache localCache = localCacheManager.getCache(cacheName);
+        if (localCache != null) {
+            localCache.clear();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package dev.ilya_anna.user_service.caches;
+
+import dev.ilya_anna.user_service.dto.UserProfile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+@Component
+public class UserProfileCache {
+    public static final String CACHE_NAME = "userProfiles";
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    public UserProfile get(String userId, Supplier<UserProfile> loader) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        UserProfile userProfile = cache.get(userId, UserProfile.class);
+        if (userProfile == null) {
+            userProfile = loader.get();
+            cache.put(userId, userProfile);
+        }
+        return userProfile;
+    }
+
+    public void evict(String userId) {
+        cacheManager.getCache(CACHE_NAME).evict(userId);
+    }
+}
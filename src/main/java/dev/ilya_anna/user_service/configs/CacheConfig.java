@@ -0,0 +1,116 @@
+package dev.ilya_anna.user_service.configs;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.ilya_anna.user_service.caches.AvatarBytesCache;
+import dev.ilya_anna.user_service.caches.CacheInvalidationPublisher;
+import dev.ilya_anna.user_service.caches.PresignedUrlCache;
+import dev.ilya_anna.user_service.caches.TwoLevelCacheManager;
+import dev.ilya_anna.user_service.caches.UserProfileCache;
+import dev.ilya_anna.user_service.dto.UserProfile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.interceptor.LoggingCacheErrorHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig implements CachingConfigurer {
+    // bump when the shape of a cached value changes incompatibly
+    private static final String REDIS_KEY_PREFIX = "user-service:v2:";
+
+    @Value("${app.cache.local.max-size:10000}")
+    private long localMaxSize;
+
+    @Value("${app.cache.local.ttl:60}")
+    private long localTtl;
+
+    @Value("${app.cache.redis.ttl:600}")
+    private long redisTtl;
+
+    @Value("${app.cache.invalidation-channel:user-service:cache-invalidation}")
+    private String invalidationChannel;
+
+    @Bean
+    public CacheInvalidationPublisher cacheInvalidationPublisher(StringRedisTemplate redisTemplate) {
+        return new CacheInvalidationPublisher(redisTemplate, invalidationChannel);
+    }
+
+    @Bean
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new LoggingCacheErrorHandler();
+    }
+
+    @Bean
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                             CacheInvalidationPublisher cacheInvalidationPublisher,
+                                             ObjectMapper objectMapper) {
+        CaffeineCacheManager localCacheManager = new CaffeineCacheManager();
+        localCacheManager.setAllowNullValues(false);
+        localCacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(localTtl)));
+
+        ObjectMapper cacheObjectMapper = objectMapper.copy()
+                .disable(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE);
+        RedisCacheConfiguration defaultCacheConfig = RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(Duration.ofSeconds(redisTtl))
+                .disableCachingNullValues()
+                .prefixCacheNameWith(REDIS_KEY_PREFIX);
+        RedisCacheManager remoteCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(defaultCacheConfig)
+                .withCacheConfiguration(UserProfileCache.CACHE_NAME, defaultCacheConfig
+                        .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                                new Jackson2JsonRedisSerializer<>(cacheObjectMapper, UserProfile.class))))
+                .build();
+        remoteCacheManager.afterPropertiesSet();
+
+        TwoLevelCacheManager cacheManager =
+                new TwoLevelCacheManager(localCacheManager, remoteCacheManager, cacheInvalidationPublisher,
+                        errorHandler());
+        cacheManager.setTransactionAware(true);
+        return cacheManager;
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            TwoLevelCacheManager cacheManager,
+                                                                            AvatarBytesCache avatarBytesCache,
+                                                                            PresignedUrlCache presignedUrlCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            int separatorIndex = body.indexOf(CacheInvalidationPublisher.SEPARATOR);
+            if (separatorIndex == -1) {
+                cacheManager.clearLocal(body);
+                return;
+            }
+            String cacheName = body.substring(0, separatorIndex);
+            String key = body.substring(separatorIndex + 1);
+            switch (cacheName) {
+                case AvatarBytesCache.CACHE_NAME -> avatarBytesCache.evict(key);
+                case PresignedUrlCache.CACHE_NAME -> presignedUrlCache.evict(key);
+                default -> cacheManager.evictLocal(cacheName, key);
+            }
+        }, new ChannelTopic(invalidationChannel));
+        return container;
+    }
+}
@@ -4,12 +4,19 @@ import io.minio.MinioClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 @Configuration
 public class MinioConfig {
     @Value("${app.minio.endpoint}")
     private String endpoint;
 
+    @Value("${app.minio.public-endpoint:}")
+    private String publicEndpoint;
+
+    @Value("${app.minio.region:us-east-1}")
+    private String region;
+
     @Value("${app.minio.accessKey}")
     private String accessKey;
 
@@ -17,10 +24,20 @@ public class MinioConfig {
     private String secretKey;
 
     @Bean
+    @Primary
     public MinioClient minioClient() {
         return MinioClient.builder()
                 .endpoint(endpoint)
                 .credentials(accessKey, secretKey)
                 .build();
     }
+
+    @Bean
+    public MinioClient presigningMinioClient() {
+        return MinioClient.builder()
+                .endpoint(publicEndpoint.isBlank() ? endpoint : publicEndpoint)
+                .region(region)
+                .credentials(accessKey, secretKey)
+                .build();
+    }
 }
@@ -28,7 +28,8 @@ public class SecurityConfig {
                 .authorizeHttpRequests(request -> request
                         .requestMatchers(HttpMethod.GET,"/api/v1/user/all-info/{userId}").access(daoUserAuthorizer)
                         .requestMatchers(HttpMethod.PUT, "/api/v1/user/{userId}", "/api/v1/user-settings/{userId}").access(daoUserAuthorizer)
-                        .requestMatchers(HttpMethod.POST, "/api/v1/user-avatars/{userId}").access(daoUserAuthorizer)
+                        .requestMatchers(HttpMethod.POST, "/api/v1/user-avatars/{userId}", "/api/v1/user-avatars/{userId}/uploads").access(daoUserAuthorizer)
+                        .requestMatchers(HttpMethod.GET, "/api/v1/user-avatars/{userId}/uploads/{uploadId}").access(daoUserAuthorizer)
                         .anyRequest().permitAll()
                 )
                 .anonymous(AbstractHttpConfigurer::disable)
@@ -6,16 +6,26 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 @Configuration
 public class WebConfig {
 
     @Value("${app.gateway.uri}")
     private String gatewayUri;
 
+    @Value("${app.gateway.connect-timeout:1000}")
+    private long connectTimeout;
+
+    @Value("${app.gateway.read-timeout:2000}")
+    private long readTimeout;
+
     @Bean
     public RestTemplate restTemplate(RestTemplateBuilder builder) {
         return builder
                 .rootUri(gatewayUri)
+                .connectTimeout(Duration.ofMillis(connectTimeout))
+                .readTimeout(Duration.ofMillis(readTimeout))
                 .build();
     }
 }
\ No newline at end of file
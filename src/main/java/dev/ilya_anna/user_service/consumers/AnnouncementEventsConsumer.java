@@ -0,0 +1,35 @@
+package dev.ilya_anna.user_service.consumers;
+
+import dev.ilya_anna.user_service.events.AnnouncementCreatedEvent;
+import dev.ilya_anna.user_service.events.AnnouncementDeletedEvent;
+import dev.ilya_anna.user_service.services.AnnouncementsCountService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class AnnouncementEventsConsumer {
+
+    @Autowired
+    private AnnouncementsCountService announcementsCountService;
+
+    @KafkaListener(topics = "announcement-created-events-topic",
+            groupId = "${spring.application.name}-announcements-counts-created-#{@kafkaInstanceId.value}",
+            autoStartup = "${app.announcements.count.events.enabled:true}")
+    public void consumeAnnouncementCreatedEvent(AnnouncementCreatedEvent announcementCreatedEvent) {
+        log.debug("Received announcement created event: {}", announcementCreatedEvent);
+
+        announcementsCountService.refreshAnnouncementsCount(announcementCreatedEvent.getUserId());
+    }
+
+    @KafkaListener(topics = "announcement-deleted-events-topic",
+            groupId = "${spring.application.name}-announcements-counts-deleted-#{@kafkaInstanceId.value}",
+            autoStartup = "${app.announcements.count.events.enabled:true}")
+    public void consumeAnnouncementDeletedEvent(AnnouncementDeletedEvent announcementDeletedEvent) {
+        log.debug("Received announcement deleted event: {}", announcementDeletedEvent);
+
+        announcementsCountService.refreshAnnouncementsCount(announcementDeletedEvent.getUserId());
+    }
+}
@@ -0,0 +1,25 @@
+package dev.ilya_anna.user_service.consumers;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+@Slf4j
+@Getter
+@Component("kafkaInstanceId")
+public class KafkaInstanceId {
+    @Value("${app.kafka.instance-id:}")
+    private String value;
+
+    @PostConstruct
+    public void init() {
+        if (value == null || value.isBlank()) {
+            value = UUID.randomUUID().toString();
+            log.info("No app.kafka.instance-id configured, broadcast consumer groups use random id {}", value);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package dev.ilya_anna.user_service.consumers;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+@Component
+public class KeyOrderedBatchProcessor {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public <T> void process(List<T> records, Function<T, String> keyExtractor, int concurrency,
+                            Consumer<List<T>> handler) {
+        if (concurrency <= 1 || records.size() <= 1) {
+            handler.accept(records);
+            return;
+        }
+
+        List<List<Integer>> lanes = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            lanes.add(new ArrayList<>());
+        }
+        for (int i = 0; i < records.size(); i++) {
+            int lane = Math.floorMod(Objects.hashCode(keyExtractor.apply(records.get(i))), concurrency);
+            lanes.get(lane).add(i);
+        }
+
+        List<List<Integer>> activeLanes = lanes.stream().filter(lane -> !lane.isEmpty()).toList();
+        List<Future<?>> results = new ArrayList<>(activeLanes.size());
+        for (List<Integer> lane : activeLanes) {
+            List<T> laneRecords = lane.stream().map(records::get).toList();
+            results.add(executor.submit(() -> handler.accept(laneRecords)));
+        }
+
+        int failedIndex = Integer.MAX_VALUE;
+        Throwable failure = null;
+        for (int i = 0; i < results.size(); i++) {
+            int firstIndex = activeLanes.get(i).getFirst();
+            try {
+                results.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BatchListenerFailedException("Interrupted while processing batch", e, 0);
+            } catch (ExecutionException e) {
+                if (firstIndex < failedIndex) {
+                    failedIndex = firstIndex;
+                    failure = e.getCause();
+                }
+            }
+        }
+        if (failure != null) {
+            throw new BatchListenerFailedException("Failed to process batch from record " + failedIndex,
+                    failure, failedIndex);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
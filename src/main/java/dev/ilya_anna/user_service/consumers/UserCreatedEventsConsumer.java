@@ -4,24 +4,35 @@ import dev.ilya_anna.user_service.events.UserCreatedEvent;
 import dev.ilya_anna.user_service.services.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
-import java.util.Map;
+import java.util.List;
 
 @Slf4j
 @Component
 public class UserCreatedEventsConsumer {
 
+    @Value("${app.kafka.user-created.concurrency:4}")
+    private int concurrency;
+
     @Autowired
     private UserService userService;
 
-    @KafkaListener(topics = "user-created-events-topic")
-    public void consumeUserCreatedEvent(Map<String, Object> eventData) {
-            log.info("Received user created event: {}", eventData);
+    @Autowired
+    private KeyOrderedBatchProcessor batchProcessor;
 
-            UserCreatedEvent userCreatedEvent = UserCreatedEvent.fromMap(eventData);
+    @KafkaListener(topics = "user-created-events-topic", batch = "true",
+            properties = {
+                    "max.poll.records=${app.kafka.user-created.max-batch-size:500}",
+                    "fetch.min.bytes=${app.kafka.user-created.fetch-min-bytes:1}",
+                    "fetch.max.wait.ms=${app.kafka.user-created.linger:500}"
+            })
+    public void consumeUserCreatedEvents(List<UserCreatedEvent> userCreatedEvents) {
+            log.info("Received {} user created events", userCreatedEvents.size());
 
-            userService.createUser(userCreatedEvent);
+            batchProcessor.process(userCreatedEvents, UserCreatedEvent::getUserId, concurrency,
+                    userService::createUsers);
     }
-}
\ No newline at end of file
+}
@@ -4,24 +4,38 @@ import dev.ilya_anna.user_service.events.UserSignOutEvent;
 import dev.ilya_anna.user_service.services.BlacklistService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
-import java.util.Map;
+import java.util.List;
 
 @Slf4j
 @Component
 public class UserSignOutEventsConsumer {
 
+    @Value("${app.kafka.user-sign-out.concurrency:4}")
+    private int concurrency;
+
     @Autowired
     private BlacklistService blacklistService;
 
-    @KafkaListener(topics = "user-sign-out-events-topic")
-    public void consumeUserSignOutEvent(Map<String, Object> eventData) {
-        log.info("Received user sign out event: {}", eventData);
+    @Autowired
+    private KeyOrderedBatchProcessor batchProcessor;
+
+    @KafkaListener(topics = "user-sign-out-events-topic", batch = "true",
+            properties = "max.poll.records=${app.kafka.user-sign-out.max-batch-size:500}")
+    public void consumeUserSignOutEvents(List<UserSignOutEvent> userSignOutEvents) {
+        log.info("Received {} user sign out events", userSignOutEvents.size());
 
-        UserSignOutEvent userSignOutEvent = UserSignOutEvent.fromMap(eventData);
+        batchProcessor.process(userSignOutEvents, UserSignOutEvent::getUserId, concurrency,
+                blacklistService::addToBlacklist);
+    }
 
-        blacklistService.addToBlacklist(userSignOutEvent);
+    @KafkaListener(topics = "user-sign-out-events-topic", batch = "true",
+            groupId = "${spring.application.name}-sign-out-marks-#{@kafkaInstanceId.value}",
+            properties = "max.poll.records=${app.kafka.user-sign-out.max-batch-size:500}")
+    public void cacheUserSignOutEvents(List<UserSignOutEvent> userSignOutEvents) {
+        blacklistService.cacheSignOutMarks(userSignOutEvents);
     }
 }
@@ -1,19 +1,31 @@
 package dev.ilya_anna.user_service.controllers;
 
+import dev.ilya_anna.user_service.dto.AvatarUploadDto;
 import dev.ilya_anna.user_service.dto.UserDto;
+import dev.ilya_anna.user_service.entities.AvatarMetadata;
 import dev.ilya_anna.user_service.exceptions.AvatarNotFoundException;
+import dev.ilya_anna.user_service.exceptions.AvatarTooLargeException;
+import dev.ilya_anna.user_service.exceptions.AvatarUploadNotFoundException;
+import dev.ilya_anna.user_service.exceptions.AvatarUploadRejectedException;
 import dev.ilya_anna.user_service.exceptions.InvalidImageFormatException;
 import dev.ilya_anna.user_service.exceptions.UserNotFoundException;
 import dev.ilya_anna.user_service.services.AvatarService;
+import dev.ilya_anna.user_service.services.AvatarUploadService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @RestController
@@ -22,18 +34,90 @@ import org.springframework.web.multipart.MultipartFile;
         description = "Controller for managing user avatars"
 )
 public class AvatarController {
+    private static final String REDIRECT_DELIVERY_MODE = "redirect";
+    private static final CacheControl AVATAR_CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS)
+            .cachePublic()
+            .immutable();
+    private static final CacheControl PENDING_VARIANT_CACHE_CONTROL = CacheControl.maxAge(1, TimeUnit.MINUTES)
+            .cachePublic();
+
+    @Value("${app.avatar.delivery.mode:stream}")
+    private String deliveryMode;
+
+    @Value("${app.avatar.delivery.url-refresh-before:60}")
+    private long redirectMaxAge;
+
     @Autowired
     private AvatarService avatarService;
 
+    @Autowired
+    private AvatarUploadService avatarUploadService;
+
+    @Autowired
+    private MultipartAvatarReader multipartAvatarReader;
+
     @Operation(
             summary = "Gets user avatar",
-            description = "Gets user avatar by id, " +
-                    "returns avatar file"
+            description = "Gets user avatar by id and optional size, " +
+                    "returns avatar file, supports conditional and range requests, " +
+                    "or redirects to a presigned storage url in redirect delivery mode"
     )
     @GetMapping("/{avatarId}")
-    public ResponseEntity<Resource> getUserAvatar(@PathVariable String avatarId){
+    public ResponseEntity<Resource> getUserAvatar(@PathVariable String avatarId,
+                                                  @RequestParam(required = false) Integer size,
+                                                  @RequestHeader HttpHeaders requestHeaders){
+        if (size != null && size <= 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
         try {
-            return ResponseEntity.ok(avatarService.getAvatar(avatarId));
+            AvatarMetadata avatarMetadata = avatarService.getAvatarMetadata(avatarId, size);
+            String etag = "\"" + avatarMetadata.getEtag() + "\"";
+            long contentLength = avatarMetadata.getContentLength();
+            boolean requestedVariant = avatarMetadata.getId().equals(avatarService.getVariantId(avatarId, size));
+
+            if (REDIRECT_DELIVERY_MODE.equals(deliveryMode)) {
+                return ResponseEntity.status(HttpStatus.FOUND)
+                        .location(URI.create(avatarService.getAvatarUrl(avatarMetadata)))
+                        .cacheControl(CacheControl.maxAge(redirectMaxAge, TimeUnit.SECONDS).cachePrivate())
+                        .build();
+            }
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setETag(etag);
+            headers.setCacheControl(requestedVariant ? AVATAR_CACHE_CONTROL : PENDING_VARIANT_CACHE_CONTROL);
+            headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+            if (matchesEtag(requestHeaders.getIfNoneMatch(), etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+            }
+
+            HttpRange range = getRequestedRange(requestHeaders, etag);
+            if (range == null) {
+                headers.setContentType(MediaType.parseMediaType(avatarMetadata.getContentType()));
+                headers.setContentLength(contentLength);
+                return ResponseEntity.ok()
+                        .headers(headers)
+                        .body(new InputStreamResource(
+                                avatarService.getAvatarContent(avatarMetadata, 0, contentLength)));
+            }
+
+            long start;
+            long end;
+            try {
+                start = range.getRangeStart(contentLength);
+                end = range.getRangeEnd(contentLength);
+            } catch (IllegalArgumentException e) {
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + contentLength);
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+            }
+
+            long length = end - start + 1;
+            headers.setContentType(MediaType.parseMediaType(avatarMetadata.getContentType()));
+            headers.setContentLength(length);
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + contentLength);
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                    .headers(headers)
+                    .body(new InputStreamResource(avatarService.getAvatarContent(avatarMetadata, start, length)));
         } catch (AvatarNotFoundException e) {
             log.error("Avatar with id {} not found", avatarId);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
@@ -45,11 +129,11 @@ public class AvatarController {
             description = "Updates user avatar by user id and avatar file, " +
                     "returns user info"
     )
-    @PostMapping("/{userId}")
-    public ResponseEntity<UserDto> updateUserAvatar(@PathVariable String userId,
-                                                    @RequestParam("avatar") MultipartFile avatarFile){
+    @PostMapping(value = "/{userId}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<UserDto> updateUserAvatar(@PathVariable String userId, HttpServletRequest request){
         try {
-            return ResponseEntity.ok(avatarService.updateAvatar(userId, avatarFile));
+            return ResponseEntity.ok(multipartAvatarReader.read(request,
+                    (filename, content) -> avatarService.updateAvatar(userId, filename, content)));
         } catch (UserNotFoundException e) {
             log.error("User not found: {}", userId);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
@@ -57,8 +141,83 @@ public class AvatarController {
             log.error("Avatar not found for user {}", userId);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         } catch (InvalidImageFormatException e) {
-            log.error("Invalid image format for user {}", userId);
+            log.error("Invalid image format for user {}: {}", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (AvatarTooLargeException e) {
+            log.error("Avatar of user {} is too large: {}", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } catch (IOException e) {
+            log.error("Malformed avatar upload of user {}: {}", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    @Operation(
+            summary = "Upload user avatar asynchronously",
+            description = "Accepts user avatar file for background processing, " +
+                    "returns id of the upload to poll its status with"
+    )
+    @PostMapping(value = "/{userId}/uploads", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<AvatarUploadDto> uploadUserAvatar(@PathVariable String userId, HttpServletRequest request){
+        try {
+            AvatarUploadDto avatarUpload = multipartAvatarReader.read(request,
+                    (filename, content) -> avatarUploadService.submitUpload(userId, filename, content));
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/v1/user-avatars/" + userId + "/uploads/" + avatarUpload.getUploadId()))
+                    .body(avatarUpload);
+        } catch (UserNotFoundException e) {
+            log.error("User not found: {}", userId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        } catch (InvalidImageFormatException e) {
+            log.error("Invalid image format for user {}: {}", userId, e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (AvatarTooLargeException e) {
+            log.error("Avatar of user {} is too large: {}", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } catch (AvatarUploadRejectedException e) {
+            log.warn("Avatar upload of user {} rejected: {}", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (IOException e) {
+            log.error("Malformed avatar upload of user {}: {}", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    @Operation(
+            summary = "Get avatar upload status",
+            description = "Gets status of an asynchronous avatar upload by user id and upload id"
+    )
+    @GetMapping("/{userId}/uploads/{uploadId}")
+    public ResponseEntity<AvatarUploadDto> getUserAvatarUpload(@PathVariable String userId,
+                                                               @PathVariable String uploadId){
+        try {
+            return ResponseEntity.ok(avatarUploadService.getUpload(userId, uploadId));
+        } catch (AvatarUploadNotFoundException e) {
+            log.error("Avatar upload {} of user {} not found", uploadId, userId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    private boolean matchesEtag(List<String> ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch) {
+            String candidateEtag = candidate.startsWith("W/") ? candidate.substring(2) : candidate;
+            if ("*".equals(candidateEtag) || etag.equals(candidateEtag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private HttpRange getRequestedRange(HttpHeaders requestHeaders, String etag) {
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = requestHeaders.getRange();
+            return ranges.size() == 1 ? ranges.getFirst() : null;
+        } catch (IllegalArgumentException e) {
+            return null;
         }
     }
 }
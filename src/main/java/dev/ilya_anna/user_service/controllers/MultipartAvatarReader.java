@@ -0,0 +1,54 @@
+package dev.ilya_anna.user_service.controllers;
+
+import dev.ilya_anna.user_service.exceptions.AvatarTooLargeException;
+import dev.ilya_anna.user_service.exceptions.InvalidImageFormatException;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.core.FileUploadSizeException;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.BiFunction;
+
+@Component
+public class MultipartAvatarReader {
+    private static final String AVATAR_PART = "avatar";
+
+    @Value("${app.avatar.upload.max-request-size:6291456}")
+    private long maxRequestSize;
+
+    private final JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> fileUpload =
+            new JakartaServletFileUpload<>();
+
+    @PostConstruct
+    public void init() {
+        fileUpload.setSizeMax(maxRequestSize);
+    }
+
+    public <T> T read(HttpServletRequest request, BiFunction<String, InputStream, T> handler) throws IOException {
+        if (!JakartaServletFileUpload.isMultipartContent(request)) {
+            throw new InvalidImageFormatException("Avatar must be sent as multipart/form-data");
+        }
+        try {
+            FileItemInputIterator items = fileUpload.getItemIterator(request);
+            while (items.hasNext()) {
+                FileItemInput item = items.next();
+                if (!item.isFormField() && AVATAR_PART.equals(item.getFieldName())) {
+                    try (InputStream content = item.getInputStream()) {
+                        return handler.apply(item.getName(), content);
+                    }
+                }
+            }
+        } catch (FileUploadSizeException e) {
+            throw new AvatarTooLargeException("Request must not exceed " + maxRequestSize + " bytes", e);
+        }
+        throw new InvalidImageFormatException("Avatar part is missing");
+    }
+}
@@ -9,10 +9,13 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/v1/user")
@@ -24,6 +27,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Value("${app.user.batch.max-size:100}")
+    private int maxBatchSize;
+
     @Operation(
             summary = "Gets full user info",
             description = "Gets full user info by id"
@@ -54,6 +60,20 @@ public class UserController {
         }
     }
 
+    @Operation(
+            summary = "Gets users",
+            description = "Gets users by list of ids, " +
+                    "returns visible info of found users in requested order"
+    )
+    @PostMapping("/batch")
+    public ResponseEntity<List<UserDto>> getUsers(@RequestBody List<String> userIds){
+        if (userIds.size() > maxBatchSize) {
+            log.error("Batch of {} user ids exceeds limit of {}", userIds.size(), maxBatchSize);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        return ResponseEntity.ok(userService.getUsers(userIds));
+    }
+
     @Operation(
             summary = "Updates user",
             description = "Updates user by id and info for update, " +
@@ -0,0 +1,40 @@
+package dev.ilya_anna.user_service.dto;
+
+import dev.ilya_anna.user_service.entities.AvatarUpload;
+import dev.ilya_anna.user_service.entities.AvatarUploadStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "State of an asynchronous avatar upload", name = "AvatarUploadDto")
+public class AvatarUploadDto implements Serializable {
+    @Schema(description = "Upload id", example = "4fd0bd4a-a8b0-4a6a-8bc6-2bbd3a5a3a3e")
+    private String uploadId;
+
+    @Schema(description = "Id of the stored avatar, set once the upload is completed",
+            example = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+    private String avatarId;
+
+    @Schema(description = "Upload status", example = "PENDING")
+    private AvatarUploadStatus status;
+
+    @Schema(description = "Reason of the failure if the upload failed", example = "Image is truncated")
+    private String error;
+
+    public static AvatarUploadDto fromAvatarUpload(AvatarUpload avatarUpload) {
+        return AvatarUploadDto.builder()
+                .uploadId(avatarUpload.getId())
+                .avatarId(avatarUpload.getAvatarId())
+                .status(avatarUpload.getStatus())
+                .error(avatarUpload.getError())
+                .build();
+    }
+}
@@ -0,0 +1,18 @@
+package dev.ilya_anna.user_service.dto;
+
+import dev.ilya_anna.user_service.entities.Visibility;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserProfile implements Serializable {
+    private UserDto info;
+    private Visibility visibility;
+}
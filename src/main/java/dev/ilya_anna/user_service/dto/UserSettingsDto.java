@@ -1,18 +1,21 @@
 package dev.ilya_anna.user_service.dto;
 
+import dev.ilya_anna.user_service.entities.Visibility;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.io.Serializable;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 @Schema(description = "User settings info (visibility of name, surname, email, phone, address and avatar)",
         name = "UserSettingsDto")
-public class UserSettingsDto {
+public class UserSettingsDto implements Serializable {
     @Schema(description = "Visibility of user name", example = "true")
     private boolean nameVisibility;
 
@@ -30,4 +33,25 @@ public class UserSettingsDto {
 
     @Schema(description = "Visibility of user avatar", example = "false")
     private boolean avatarVisibility;
+
+    public static UserSettingsDto fromVisibility(Visibility visibility) {
+        return UserSettingsDto.builder()
+                .nameVisibility(visibility.isVisible(Visibility.NAME))
+                .surnameVisibility(visibility.isVisible(Visibility.SURNAME))
+                .emailVisibility(visibility.isVisible(Visibility.EMAIL))
+                .phoneVisibility(visibility.isVisible(Visibility.PHONE))
+                .addressVisibility(visibility.isVisible(Visibility.ADDRESS))
+                .avatarVisibility(visibility.isVisible(Visibility.AVATAR))
+                .build();
+    }
+
+    public Visibility toVisibility() {
+        return Visibility.of(0)
+                .with(Visibility.NAME, nameVisibility)
+                .with(Visibility.SURNAME, surnameVisibility)
+                .with(Visibility.EMAIL, emailVisibility)
+                .with(Visibility.PHONE, phoneVisibility)
+                .with(Visibility.ADDRESS, addressVisibility)
+                .with(Visibility.AVATAR, avatarVisibility);
+    }
 }
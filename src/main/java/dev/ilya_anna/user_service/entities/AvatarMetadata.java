@@ -5,6 +5,8 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import lombok.*;
 
+import java.time.ZonedDateTime;
+
 @Entity
 @Table(name = "avatars_metadata")
 @NoArgsConstructor
@@ -16,4 +18,11 @@ public class AvatarMetadata {
     @Id
     private String id;
     private String avatarPath;
+    private String contentType;
+    private Long contentLength;
+    private String etag;
+    @Builder.Default
+    private int refCount = 1;
+    private ZonedDateTime supersededAt;
+    private String originalId;
 }
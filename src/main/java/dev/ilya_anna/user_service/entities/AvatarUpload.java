@@ -0,0 +1,18 @@
+package dev.ilya_anna.user_service.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AvatarUpload {
+    private String id;
+    private String userId;
+    private String avatarId;
+    private AvatarUploadStatus status;
+    private String error;
+}
@@ -0,0 +1,7 @@
+package dev.ilya_anna.user_service.entities;
+
+public enum AvatarUploadStatus {
+    PENDING,
+    COMPLETED,
+    FAILED
+}
@@ -1,27 +1,16 @@
 package dev.ilya_anna.user_service.entities;
 
-import jakarta.persistence.Id;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.springframework.data.redis.core.RedisHash;
-import org.springframework.data.redis.core.TimeToLive;
-import org.springframework.data.redis.core.index.Indexed;
 
-import java.time.ZonedDateTime;
-
-@RedisHash
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class SignOutMark {
-    @Id
-    private String id;
-    @Indexed
     private String userId;
-    private ZonedDateTime signOutTime;
-    @TimeToLive
-    private Long ttl;
+    private long signOutTime;
+    private long expiresAt;
 }
@@ -13,12 +13,9 @@ import lombok.*;
 public class UserSettings {
     @Id
     private String id;
-    private boolean nameVisibility;
-    private boolean surnameVisibility;
-    private boolean emailVisibility;
-    private boolean phoneVisibility;
-    private boolean addressVisibility;
-    private boolean avatarVisibility;
+    @Convert(converter = VisibilityConverter.class)
+    @Column(name = "visibility_flags")
+    private Visibility visibility;
     @OneToOne
     @JoinColumn(name="user_id", referencedColumnName = "id")
     private User user;
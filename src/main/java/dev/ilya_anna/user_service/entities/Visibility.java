@@ -0,0 +1,78 @@
+package dev.ilya_anna.user_service.entities;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+public final class Visibility implements Serializable {
+    public static final int NAME = 1;
+    public static final int SURNAME = 1 << 1;
+    public static final int EMAIL = 1 << 2;
+    public static final int PHONE = 1 << 3;
+    public static final int ADDRESS = 1 << 4;
+    public static final int AVATAR = 1 << 5;
+    public static final int ALL_FLAGS = NAME | SURNAME | EMAIL | PHONE | ADDRESS | AVATAR;
+
+    private static final Visibility[] VALUES = new Visibility[ALL_FLAGS + 1];
+
+    static {
+        for (int flags = 0; flags <= ALL_FLAGS; flags++) {
+            VALUES[flags] = new Visibility(flags);
+        }
+    }
+
+    public static final Visibility ALL_VISIBLE = VALUES[ALL_FLAGS];
+
+    private final int flags;
+
+    private Visibility(int flags) {
+        this.flags = flags;
+    }
+
+    @JsonCreator
+    public static Visibility of(int flags) {
+        return VALUES[flags & ALL_FLAGS];
+    }
+
+    public static Visibility of(UserSettings userSettings) {
+        if (userSettings == null || userSettings.getVisibility() == null) {
+            return ALL_VISIBLE;
+        }
+        return userSettings.getVisibility();
+    }
+
+    @JsonValue
+    public int getFlags() {
+        return flags;
+    }
+
+    public boolean isVisible(int flag) {
+        return (flags & flag) == flag;
+    }
+
+    public Visibility with(int flag, boolean visible) {
+        return of(visible ? flags | flag : flags & ~flag);
+    }
+
+    @Serial
+    private Object readResolve() {
+        return of(flags);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Visibility visibility && visibility.flags == flags;
+    }
+
+    @Override
+    public int hashCode() {
+        return flags;
+    }
+
+    @Override
+    public String toString() {
+        return "Visibility(" + Integer.toBinaryString(flags) + ")";
+    }
+}
@@ -0,0 +1,17 @@
+package dev.ilya_anna.user_service.entities;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter
+public class VisibilityConverter implements AttributeConverter<Visibility, Integer> {
+    @Override
+    public Integer convertToDatabaseColumn(Visibility visibility) {
+        return visibility == null ? null : visibility.getFlags();
+    }
+
+    @Override
+    public Visibility convertToEntityAttribute(Integer flags) {
+        return flags == null ? null : Visibility.of(flags);
+    }
+}
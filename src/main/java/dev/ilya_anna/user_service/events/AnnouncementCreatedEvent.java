@@ -0,0 +1,40 @@
+package dev.ilya_anna.user_service.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.ZonedDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnnouncementCreatedEvent {
+    private String id;
+    private String userId;
+    private String announcementId;
+    private ZonedDateTime time;
+
+    public static final String TOPIC = "announcement-created-events-topic";
+
+    public static Map<String, Object> toMap(AnnouncementCreatedEvent announcementCreatedEvent) {
+        return Map.of(
+                "id", announcementCreatedEvent.getId(),
+                "userId", announcementCreatedEvent.getUserId(),
+                "announcementId", announcementCreatedEvent.getAnnouncementId(),
+                "time", announcementCreatedEvent.getTime().toString()
+        );
+    }
+
+    public static AnnouncementCreatedEvent fromMap(Map<String, Object> map) {
+        return AnnouncementCreatedEvent.builder()
+                .id((String) map.get("id"))
+                .userId((String) map.get("userId"))
+                .announcementId((String) map.get("announcementId"))
+                .time(ZonedDateTime.parse((String) map.get("time")))
+                .build();
+    }
+}
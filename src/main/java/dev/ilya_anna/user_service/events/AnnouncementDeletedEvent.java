@@ -0,0 +1,40 @@
+package dev.ilya_anna.user_service.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.ZonedDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnnouncementDeletedEvent {
+    private String id;
+    private String userId;
+    private String announcementId;
+    private ZonedDateTime time;
+
+    public static final String TOPIC = "announcement-deleted-events-topic";
+
+    public static Map<String, Object> toMap(AnnouncementDeletedEvent announcementDeletedEvent) {
+        return Map.of(
+                "id", announcementDeletedEvent.getId(),
+                "userId", announcementDeletedEvent.getUserId(),
+                "announcementId", announcementDeletedEvent.getAnnouncementId(),
+                "time", announcementDeletedEvent.getTime().toString()
+        );
+    }
+
+    public static AnnouncementDeletedEvent fromMap(Map<String, Object> map) {
+        return AnnouncementDeletedEvent.builder()
+                .id((String) map.get("id"))
+                .userId((String) map.get("userId"))
+                .announcementId((String) map.get("announcementId"))
+                .time(ZonedDateTime.parse((String) map.get("time")))
+                .build();
+    }
+}
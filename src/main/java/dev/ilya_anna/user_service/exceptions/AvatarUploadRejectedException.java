@@ -0,0 +1,7 @@
+package dev.ilya_anna.user_service.exceptions;
+
+import lombok.experimental.StandardException;
+
+@StandardException
+public class AvatarUploadRejectedException extends RuntimeException{
+}
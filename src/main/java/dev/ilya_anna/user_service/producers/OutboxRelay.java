@@ -0,0 +1,86 @@
+package dev.ilya_anna.user_service.producers;
+
+import dev.ilya_anna.user_service.entities.OutboxEvent;
+import dev.ilya_anna.user_service.repositories.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Slf4j
+@Component
+public class OutboxRelay {
+    private static final long RELAY_LOCK_KEY = 0x6f7574626f78L;
+
+    @Value("${app.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.outbox.send-timeout:10000}")
+    private long sendTimeout;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval:200}")
+    public void relay() {
+        Integer published;
+        do {
+            published = transactionTemplate.execute(status -> publishNextBatch());
+        } while (published != null && published == batchSize);
+    }
+
+    private int publishNextBatch() {
+        // one relay at a time, parallel batches could publish events of the same key out of order
+        if (!outboxEventRepository.tryLockRelay(RELAY_LOCK_KEY)) {
+            return 0;
+        }
+        List<OutboxEvent> outboxEvents = outboxEventRepository.lockNextBatch(batchSize);
+        if (outboxEvents.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<SendResult<String, Object>>> results = new ArrayList<>();
+        for (OutboxEvent outboxEvent : outboxEvents) {
+            results.add(kafkaTemplate.send(outboxEvent.getTopic(), outboxEvent.getMessageKey(),
+                    outboxEvent.getPayload()));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeout);
+        List<Long> publishedIds = new ArrayList<>();
+        int failed = 0;
+        for (int i = 0; i < outboxEvents.size(); i++) {
+            try {
+                results.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                publishedIds.add(outboxEvents.get(i).getId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException | TimeoutException e) {
+                log.warn("Failed to publish outbox event {}, will retry it", outboxEvents.get(i).getId(), e);
+                failed++;
+            }
+        }
+
+        if (!publishedIds.isEmpty()) {
+            outboxEventRepository.deleteAllByIdInBatch(publishedIds);
+        }
+        return failed == 0 ? publishedIds.size() : 0;
+    }
+}
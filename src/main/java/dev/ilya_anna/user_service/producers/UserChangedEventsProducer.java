@@ -1,34 +1,40 @@
 package dev.ilya_anna.user_service.producers;
 
+import dev.ilya_anna.user_service.entities.OutboxEvent;
 import dev.ilya_anna.user_service.events.UserChangedEvent;
-import lombok.extern.slf4j.Slf4j;
+import dev.ilya_anna.user_service.repositories.OutboxEventRepository;
+import dev.ilya_anna.user_service.serialization.EventFormat;
+import dev.ilya_anna.user_service.serialization.EventSerializer;
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.Map;
-import java.util.concurrent.ExecutionException;
+import java.time.ZonedDateTime;
 
-@Slf4j
 @Component
 public class UserChangedEventsProducer {
-    @Autowired
-    private KafkaTemplate<String, Map<String, Object>> kafkaTemplate;
+    @Value("${app.kafka.event-format:json}")
+    private String eventFormat;
 
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
 
-    public void sendUserCreatedEvent(UserChangedEvent userChangedEvent) {
-        try {
-            SendResult<String, Map<String, Object>> result = kafkaTemplate.send("user-changed-events-topic",
-                    userChangedEvent.getId(),
-                    UserChangedEvent.toMap(userChangedEvent)).get();
-            log.info("Message sent successfully: {}", result.getRecordMetadata());
+    private EventSerializer eventSerializer;
 
-        } catch (InterruptedException e) {
-            log.error("Interrupted while sending message", e);
+    @PostConstruct
+    public void init() {
+        eventSerializer = new EventSerializer(EventFormat.of(eventFormat));
+    }
 
-        } catch (ExecutionException e) {
-            log.error("Failed to send message", e.getCause());
-        }
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void sendUserChangedEvent(UserChangedEvent userChangedEvent) {
+        outboxEventRepository.save(OutboxEvent.builder()
+                .topic(UserChangedEvent.TOPIC)
+                .messageKey(userChangedEvent.getId())
+                .payload(eventSerializer.serialize(UserChangedEvent.TOPIC, userChangedEvent))
+                .createdAt(ZonedDateTime.now())
+                .build());
     }
 }
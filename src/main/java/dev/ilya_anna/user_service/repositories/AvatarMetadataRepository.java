@@ -1,9 +1,38 @@
 package dev.ilya_anna.user_service.repositories;
 
 import dev.ilya_anna.user_service.entities.AvatarMetadata;
+import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface AvatarMetadataRepository extends JpaRepository<AvatarMetadata, String> {
+    @Transactional
+    @Modifying
+    @Query("update AvatarMetadata a set a.refCount = a.refCount - 1, " +
+            "a.supersededAt = case when a.refCount <= 1 then :time else a.supersededAt end " +
+            "where a.id = :avatarId and a.refCount > 0")
+    int release(@Param("avatarId") String avatarId, @Param("time") ZonedDateTime time);
+
+    @Transactional
+    @Modifying
+    @Query("update AvatarMetadata a set a.contentType = :contentType, a.contentLength = :contentLength, " +
+            "a.etag = :etag where a.id = :avatarId")
+    int updateContentMetadata(@Param("avatarId") String avatarId, @Param("contentType") String contentType,
+                              @Param("contentLength") Long contentLength, @Param("etag") String etag);
+
+    @Query(value = "select * from avatars_metadata " +
+            "where ref_count <= 0 and superseded_at < :time " +
+            "order by superseded_at limit :limit for update skip locked",
+            nativeQuery = true)
+    List<AvatarMetadata> lockSupersededBatch(@Param("time") ZonedDateTime time, @Param("limit") int limit);
+
+    List<AvatarMetadata> findAllByOriginalIdIn(Collection<String> originalIds);
 }
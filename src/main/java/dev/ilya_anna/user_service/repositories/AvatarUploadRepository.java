@@ -0,0 +1,66 @@
+package dev.ilya_anna.user_service.repositories;
+
+import dev.ilya_anna.user_service.entities.AvatarUpload;
+import dev.ilya_anna.user_service.entities.AvatarUploadStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@Repository
+public class AvatarUploadRepository {
+    public static final String KEY_PREFIX = "avatar-uploads:";
+
+    private static final String USER_ID_FIELD = "userId";
+    private static final String AVATAR_ID_FIELD = "avatarId";
+    private static final String STATUS_FIELD = "status";
+    private static final String ERROR_FIELD = "error";
+
+    @Value("${app.avatar.upload.async.status-ttl:86400}")
+    private long statusTtl;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    public void save(AvatarUpload avatarUpload) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put(USER_ID_FIELD, avatarUpload.getUserId());
+        fields.put(STATUS_FIELD, avatarUpload.getStatus().name());
+        if (avatarUpload.getAvatarId() != null) {
+            fields.put(AVATAR_ID_FIELD, avatarUpload.getAvatarId());
+        }
+        if (avatarUpload.getError() != null) {
+            fields.put(ERROR_FIELD, avatarUpload.getError());
+        }
+        String key = key(avatarUpload.getId());
+        redisTemplate.opsForHash().putAll(key, fields);
+        redisTemplate.expire(key, Duration.ofSeconds(statusTtl));
+    }
+
+    public Optional<AvatarUpload> findById(String uploadId) {
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(key(uploadId));
+        if (fields.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(AvatarUpload.builder()
+                .id(uploadId)
+                .userId((String) fields.get(USER_ID_FIELD))
+                .avatarId((String) fields.get(AVATAR_ID_FIELD))
+                .status(AvatarUploadStatus.valueOf((String) fields.get(STATUS_FIELD)))
+                .error((String) fields.get(ERROR_FIELD))
+                .build());
+    }
+
+    public void deleteById(String uploadId) {
+        redisTemplate.delete(key(uploadId));
+    }
+
+    private static String key(String uploadId) {
+        return KEY_PREFIX + uploadId;
+    }
+}
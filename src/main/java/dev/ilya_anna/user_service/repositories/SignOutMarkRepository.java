@@ -1,10 +1,62 @@
 package dev.ilya_anna.user_service.repositories;
 
 import dev.ilya_anna.user_service.entities.SignOutMark;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Optional;
+
 @Repository
-public interface SignOutMarkRepository extends CrudRepository<SignOutMark, String> {
-    boolean existsByUserId(String userId);
+public class SignOutMarkRepository {
+    public static final String KEY_PREFIX = "sign-out-marks:";
+
+    private static final byte[] SAVE_LATEST_SCRIPT = """
+            local current = redis.call('GET', KEYS[1])
+            if current and tonumber(current) >= tonumber(ARGV[1]) then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'EXAT', ARGV[2])
+            return 1
+            """.getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    public void saveAll(Collection<SignOutMark> signOutMarks) {
+        if (signOutMarks.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (SignOutMark signOutMark : signOutMarks) {
+                saveLatest(connection, signOutMark);
+            }
+            return null;
+        });
+    }
+
+    public Optional<Long> findSignOutTimeByUserId(String userId) {
+        return Optional.ofNullable(redisTemplate.opsForValue().get(key(userId)))
+                .map(Long::valueOf);
+    }
+
+    private void saveLatest(RedisConnection connection, SignOutMark signOutMark) {
+        connection.scriptingCommands().eval(SAVE_LATEST_SCRIPT, ReturnType.INTEGER, 1,
+                bytes(key(signOutMark.getUserId())),
+                bytes(Long.toString(signOutMark.getSignOutTime())),
+                bytes(Long.toString(signOutMark.getExpiresAt())));
+    }
+
+    private static String key(String userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
 }
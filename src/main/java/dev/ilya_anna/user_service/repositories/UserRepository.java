@@ -2,8 +2,19 @@ package dev.ilya_anna.user_service.repositories;
 
 import dev.ilya_anna.user_service.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, String> {
+    @Query("select u from User u left join fetch u.userSettings where u.id in :ids")
+    List<User> findAllWithSettingsByIdIn(@Param("ids") Collection<String> ids);
+
+    @Query("select u from User u left join fetch u.userSettings where u.id = :id")
+    Optional<User> findWithSettingsById(@Param("id") String id);
 }
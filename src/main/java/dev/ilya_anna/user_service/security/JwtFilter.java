@@ -2,10 +2,8 @@ package dev.ilya_anna.user_service.security;
 
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
-import dev.ilya_anna.user_service.entities.User;
 import dev.ilya_anna.user_service.exceptions.JwtAuthenticationException;
 import dev.ilya_anna.user_service.exceptions.UserNotFoundException;
-import dev.ilya_anna.user_service.repositories.UserRepository;
 import dev.ilya_anna.user_service.services.BlacklistService;
 import dev.ilya_anna.user_service.services.JwtService;
 import jakarta.servlet.FilterChain;
@@ -13,6 +11,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -28,7 +27,11 @@ public class JwtFilter extends OncePerRequestFilter {
     @Autowired
     private BlacklistService blacklistService;
     @Autowired
-    private UserRepository userRepository;
+    private VerifiedTokenCache verifiedTokenCache;
+    @Autowired
+    private UserExistenceChecker userExistenceChecker;
+    @Value("${app.security.user-exists-check.enabled:false}")
+    private boolean userExistsCheckEnabled;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -39,23 +42,23 @@ public class JwtFilter extends OncePerRequestFilter {
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
                 String jwtToken = authHeader.substring(7);
 
-                DecodedJWT decodedJWT = jwtService.verifyAccessToken(jwtToken);
+                DecodedJWT decodedJWT = verifiedTokenCache.get(jwtToken, jwtService::verifyAccessToken);
                 String userId = decodedJWT.getClaim("userId").asString();
 
-                User user = userRepository.findById(userId).orElseThrow(
-                        () -> new UserNotFoundException("User with id " + userId + " not found")
-                );
+                if (userExistsCheckEnabled && !userExistenceChecker.exists(userId)) {
+                    throw new UserNotFoundException("User with id " + userId + " not found");
+                }
 
-                if (blacklistService.isInBlacklist(userId)) {
+                if (blacklistService.isInBlacklist(userId, decodedJWT.getIssuedAtAsInstant())) {
                     throw new JwtAuthenticationException("Token is blacklisted");
                 }
 
-                DaoUserDetails daoUserDetails = new DaoUserDetails(user);
+                JwtUserDetails jwtUserDetails = new JwtUserDetails(userId);
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
-                                daoUserDetails,
+                                jwtUserDetails,
                                 null,
-                                daoUserDetails.getAuthorities());
+                                jwtUserDetails.getAuthorities());
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
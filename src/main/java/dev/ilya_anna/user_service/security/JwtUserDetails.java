@@ -1,6 +1,5 @@
 package dev.ilya_anna.user_service.security;
 
-import dev.ilya_anna.user_service.entities.User;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.springframework.security.core.GrantedAuthority;
@@ -12,8 +11,8 @@ import java.util.List;
 
 @Getter
 @AllArgsConstructor
-public class DaoUserDetails implements UserDetails {
-    private User user;
+public class JwtUserDetails implements UserDetails {
+    private String userId;
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
@@ -27,6 +26,6 @@ public class DaoUserDetails implements UserDetails {
 
     @Override
     public String getUsername() {
-        return user.getId();
+        return userId;
     }
 }
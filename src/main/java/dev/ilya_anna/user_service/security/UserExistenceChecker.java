@@ -0,0 +1,44 @@
+package dev.ilya_anna.user_service.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.ilya_anna.user_service.repositories.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class UserExistenceChecker {
+    @Value("${app.security.user-exists-check.ttl:60}")
+    private long ttl;
+
+    @Value("${app.security.user-exists-check.max-size:100000}")
+    private long maxSize;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Cache<String, Boolean> existingUsers;
+
+    @PostConstruct
+    public void init() {
+        existingUsers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl, TimeUnit.SECONDS)
+                .build();
+    }
+
+    public boolean exists(String userId) {
+        if (existingUsers.getIfPresent(userId) != null) {
+            return true;
+        }
+        boolean exists = userRepository.existsById(userId);
+        if (exists) {
+            existingUsers.put(userId, Boolean.TRUE);
+        }
+        return exists;
+    }
+}
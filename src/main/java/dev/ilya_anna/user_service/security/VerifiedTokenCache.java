@@ -0,0 +1,84 @@
+package dev.ilya_anna.user_service.security;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.function.Function;
+
+@Component
+public class VerifiedTokenCache {
+    @Value("${app.jwt.access.duration}")
+    private long accessDuration;
+
+    @Value("${app.jwt.cache.max-size:10000}")
+    private long maxSize;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, DecodedJWT> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "verifiedTokens");
+    }
+
+    public DecodedJWT get(String token, Function<String, DecodedJWT> verifier) throws JWTVerificationException {
+        return cache.get(hash(token), key -> verifier.apply(token));
+    }
+
+    private String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    private class TokenExpiry implements Expiry<String, DecodedJWT> {
+        @Override
+        public long expireAfterCreate(String key, DecodedJWT decodedJWT, long currentTime) {
+            Duration maxLifetime = Duration.ofSeconds(accessDuration);
+            Instant expiresAt = decodedJWT.getExpiresAtAsInstant();
+            if (expiresAt == null) {
+                return maxLifetime.toNanos();
+            }
+            Duration lifetime = Duration.between(Instant.now(), expiresAt);
+            if (lifetime.isNegative()) {
+                return 0;
+            }
+            return lifetime.compareTo(maxLifetime) < 0 ? lifetime.toNanos() : maxLifetime.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, DecodedJWT decodedJWT, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, DecodedJWT decodedJWT, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
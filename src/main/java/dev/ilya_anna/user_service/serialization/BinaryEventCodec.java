@@ -0,0 +1,154 @@
+package dev.ilya_anna.user_service.serialization;
+
+import dev.ilya_anna.user_service.events.AnnouncementCreatedEvent;
+import dev.ilya_anna.user_service.events.AnnouncementDeletedEvent;
+import dev.ilya_anna.user_service.events.UserChangedEvent;
+import dev.ilya_anna.user_service.events.UserCreatedEvent;
+import dev.ilya_anna.user_service.events.UserSignOutEvent;
+import org.apache.kafka.common.errors.SerializationException;
+
+/*
+ * Layout: MAGIC, type tag, schema version, then the fields of the type in declaration order.
+ * Strings are varint(length + 1) followed by UTF-8 bytes (0 means null), times are
+ * zone id, zigzag epoch second and varint nanos. New fields may only be appended
+ * with a version bump, so readers can stop early on older messages.
+ */
+public final class BinaryEventCodec {
+    public static final byte MAGIC = (byte) 0xB1;
+
+    private static final byte USER_CREATED = 1;
+    private static final byte USER_SIGN_OUT = 2;
+    private static final byte USER_CHANGED = 3;
+    private static final byte ANNOUNCEMENT_CREATED = 4;
+    private static final byte ANNOUNCEMENT_DELETED = 5;
+
+    private static final byte VERSION = 1;
+
+    private BinaryEventCodec() {
+    }
+
+    public static boolean supports(Object event) {
+        return event instanceof UserCreatedEvent
+                || event instanceof UserSignOutEvent
+                || event instanceof UserChangedEvent
+                || event instanceof AnnouncementCreatedEvent
+                || event instanceof AnnouncementDeletedEvent;
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data.length > 0 && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(Object event) {
+        BinaryWriter writer = new BinaryWriter(128);
+        writer.writeByte(MAGIC);
+        switch (event) {
+            case UserCreatedEvent e -> {
+                writeHeader(writer, USER_CREATED);
+                writer.writeString(e.getId());
+                writer.writeString(e.getUserId());
+                writer.writeString(e.getName());
+                writer.writeString(e.getSurname());
+                writer.writeString(e.getNickname());
+                writer.writeString(e.getPhone());
+                writer.writeString(e.getEmail());
+                writer.writeTime(e.getTime());
+            }
+            case UserSignOutEvent e -> {
+                writeHeader(writer, USER_SIGN_OUT);
+                writer.writeString(e.getId());
+                writer.writeString(e.getUserId());
+                writer.writeTime(e.getTime());
+            }
+            case UserChangedEvent e -> {
+                writeHeader(writer, USER_CHANGED);
+                writer.writeString(e.getId());
+                writer.writeString(e.getUserId());
+                writer.writeString(e.getName());
+                writer.writeString(e.getSurname());
+                writer.writeString(e.getNickname());
+                writer.writeString(e.getEmail());
+                writer.writeString(e.getPhone());
+                writer.writeString(e.getAddress());
+                writer.writeTime(e.getRegisteredAt());
+                writer.writeString(e.getAbout());
+            }
+            case AnnouncementCreatedEvent e -> {
+                writeHeader(writer, ANNOUNCEMENT_CREATED);
+                writer.writeString(e.getId());
+                writer.writeString(e.getUserId());
+                writer.writeString(e.getAnnouncementId());
+                writer.writeTime(e.getTime());
+            }
+            case AnnouncementDeletedEvent e -> {
+                writeHeader(writer, ANNOUNCEMENT_DELETED);
+                writer.writeString(e.getId());
+                writer.writeString(e.getUserId());
+                writer.writeString(e.getAnnouncementId());
+                writer.writeTime(e.getTime());
+            }
+            default -> throw new SerializationException(
+                    "Unsupported event type " + event.getClass().getName());
+        }
+        return writer.toByteArray();
+    }
+
+    public static Object decode(byte[] data) {
+        if (!isBinary(data)) {
+            throw new SerializationException("Event data is not in binary format");
+        }
+        BinaryReader reader = new BinaryReader(data, 1);
+        byte type = reader.readByte();
+        byte version = reader.readByte();
+        if (version < 1 || version > VERSION) {
+            throw new SerializationException("Unsupported version " + version + " of event type " + type);
+        }
+        return switch (type) {
+            case USER_CREATED -> UserCreatedEvent.builder()
+                    .id(reader.readString())
+                    .userId(reader.readString())
+                    .name(reader.readString())
+                    .surname(reader.readString())
+                    .nickname(reader.readString())
+                    .phone(reader.readString())
+                    .email(reader.readString())
+                    .time(reader.readTime())
+                    .build();
+            case USER_SIGN_OUT -> UserSignOutEvent.builder()
+                    .id(reader.readString())
+                    .userId(reader.readString())
+                    .time(reader.readTime())
+                    .build();
+            case USER_CHANGED -> UserChangedEvent.builder()
+                    .id(reader.readString())
+                    .userId(reader.readString())
+                    .name(reader.readString())
+                    .surname(reader.readString())
+                    .nickname(reader.readString())
+                    .email(reader.readString())
+                    .phone(reader.readString())
+                    .address(reader.readString())
+                    .registeredAt(reader.readTime())
+                    .about(reader.readString())
+                    .build();
+            case ANNOUNCEMENT_CREATED -> AnnouncementCreatedEvent.builder()
+                    .id(reader.readString())
+                    .userId(reader.readString())
+                    .announcementId(reader.readString())
+                    .time(reader.readTime())
+                    .build();
+            case ANNOUNCEMENT_DELETED -> AnnouncementDeletedEvent.builder()
+                    .id(reader.readString())
+                    .userId(reader.readString())
+                    .announcementId(reader.readString())
+                    .time(reader.readTime())
+                    .build();
+            default -> throw new SerializationException("Unknown event type " + type);
+        };
+    }
+
+    private static void writeHeader(BinaryWriter writer, byte type) {
+        writer.writeByte(type);
+        writer.writeByte(VERSION);
+    }
+}
@@ -0,0 +1,65 @@
+package dev.ilya_anna.user_service.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+class BinaryReader {
+    private final byte[] buffer;
+    private int position;
+
+    BinaryReader(byte[] buffer, int position) {
+        this.buffer = buffer;
+        this.position = position;
+    }
+
+    byte readByte() {
+        if (position >= buffer.length) {
+            throw new SerializationException("Unexpected end of event data");
+        }
+        return buffer[position++];
+    }
+
+    long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint in event data");
+    }
+
+    long readZigZagLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    String readString() {
+        long length = readVarLong() - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.length - position) {
+            throw new SerializationException("Unexpected end of event data");
+        }
+        String value = new String(buffer, position, (int) length, StandardCharsets.UTF_8);
+        position += (int) length;
+        return value;
+    }
+
+    ZonedDateTime readTime() {
+        String zone = readString();
+        if (zone == null) {
+            return null;
+        }
+        long epochSecond = readZigZagLong();
+        long nanos = readVarLong();
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSecond, nanos), ZoneId.of(zone));
+    }
+}
@@ -0,0 +1,44 @@
+package dev.ilya_anna.user_service.serialization;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.ilya_anna.user_service.events.AnnouncementCreatedEvent;
+import dev.ilya_anna.user_service.events.AnnouncementDeletedEvent;
+import dev.ilya_anna.user_service.events.UserCreatedEvent;
+import dev.ilya_anna.user_service.events.UserSignOutEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.Function;
+
+public class EventDeserializer implements Deserializer<Object> {
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private static final Map<String, Function<Map<String, Object>, Object>> JSON_READERS = Map.of(
+            UserCreatedEvent.TOPIC, UserCreatedEvent::fromMap,
+            UserSignOutEvent.TOPIC, UserSignOutEvent::fromMap,
+            AnnouncementCreatedEvent.TOPIC, AnnouncementCreatedEvent::fromMap,
+            AnnouncementDeletedEvent.TOPIC, AnnouncementDeletedEvent::fromMap
+    );
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (BinaryEventCodec.isBinary(data)) {
+            return BinaryEventCodec.decode(data);
+        }
+        try {
+            Map<String, Object> map = objectMapper.readValue(data, MAP_TYPE);
+            Function<Map<String, Object>, Object> reader = JSON_READERS.get(topic);
+            return reader == null ? map : reader.apply(map);
+        } catch (IOException e) {
+            throw new SerializationException("Failed to deserialize event from topic " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package dev.ilya_anna.user_service.serialization;
+
+public enum EventFormat {
+    JSON,
+    BINARY;
+
+    public static EventFormat of(Object value) {
+        return value == null ? JSON : valueOf(value.toString().trim().toUpperCase());
+    }
+}
@@ -0,0 +1,64 @@
+package dev.ilya_anna.user_service.serialization;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.ilya_anna.user_service.events.AnnouncementCreatedEvent;
+import dev.ilya_anna.user_service.events.AnnouncementDeletedEvent;
+import dev.ilya_anna.user_service.events.UserChangedEvent;
+import dev.ilya_anna.user_service.events.UserCreatedEvent;
+import dev.ilya_anna.user_service.events.UserSignOutEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.Map;
+
+public class EventSerializer implements Serializer<Object> {
+    public static final String FORMAT_CONFIG = "event.format";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private EventFormat format;
+
+    public EventSerializer() {
+        this(EventFormat.JSON);
+    }
+
+    public EventSerializer(EventFormat format) {
+        this.format = format;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if (configs.containsKey(FORMAT_CONFIG)) {
+            format = EventFormat.of(configs.get(FORMAT_CONFIG));
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (data instanceof byte[] bytes) {
+            return bytes;
+        }
+        if (format == EventFormat.BINARY && BinaryEventCodec.supports(data)) {
+            return BinaryEventCodec.encode(data);
+        }
+        try {
+            return objectMapper.writeValueAsBytes(toMap(data));
+        } catch (JsonProcessingException e) {
+            throw new SerializationException("Failed to serialize event for topic " + topic, e);
+        }
+    }
+
+    private static Object toMap(Object data) {
+        return switch (data) {
+            case UserCreatedEvent e -> UserCreatedEvent.toMap(e);
+            case UserSignOutEvent e -> UserSignOutEvent.toMap(e);
+            case UserChangedEvent e -> UserChangedEvent.toMap(e);
+            case AnnouncementCreatedEvent e -> AnnouncementCreatedEvent.toMap(e);
+            case AnnouncementDeletedEvent e -> AnnouncementDeletedEvent.toMap(e);
+            default -> data;
+        };
+    }
+}
@@ -0,0 +1,12 @@
+package dev.ilya_anna.user_service.services;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface AnnouncementsCountService {
+    Integer getAnnouncementsCount(String userId);
+
+    Map<String, Integer> getAnnouncementsCounts(Collection<String> userIds);
+
+    void refreshAnnouncementsCount(String userId);
+}
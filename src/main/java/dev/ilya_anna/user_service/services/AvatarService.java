@@ -1,14 +1,28 @@
 package dev.ilya_anna.user_service.services;
 
 import dev.ilya_anna.user_service.dto.UserDto;
+import dev.ilya_anna.user_service.entities.AvatarMetadata;
 import dev.ilya_anna.user_service.exceptions.AvatarNotFoundException;
+import dev.ilya_anna.user_service.exceptions.AvatarTooLargeException;
 import dev.ilya_anna.user_service.exceptions.InvalidImageFormatException;
 import dev.ilya_anna.user_service.exceptions.UserNotFoundException;
-import org.springframework.core.io.Resource;
-import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
 
 public interface AvatarService {
-    Resource getAvatar(String userId) throws AvatarNotFoundException;
+    String getVariantId(String avatarId, Integer size);
+
+    AvatarMetadata getAvatarMetadata(String avatarId, Integer size) throws AvatarNotFoundException;
+
+    InputStream getAvatarContent(AvatarMetadata avatarMetadata, long offset, long length);
+
+    String getAvatarUrl(AvatarMetadata avatarMetadata);
+
+    UserDto updateAvatar(String userId, String filename, InputStream content)
+            throws UserNotFoundException, InvalidImageFormatException, AvatarTooLargeException;
+
+    AvatarMetadata storeAvatar(InputStream content, long size)
+            throws InvalidImageFormatException, AvatarTooLargeException;
 
-    UserDto updateAvatar(String userId, MultipartFile avatarFile) throws UserNotFoundException, InvalidImageFormatException;
+    void replaceAvatar(String userId, AvatarMetadata avatarMetadata) throws UserNotFoundException;
 }
@@ -0,0 +1,18 @@
+package dev.ilya_anna.user_service.services;
+
+import dev.ilya_anna.user_service.dto.AvatarUploadDto;
+import dev.ilya_anna.user_service.exceptions.AvatarTooLargeException;
+import dev.ilya_anna.user_service.exceptions.AvatarUploadNotFoundException;
+import dev.ilya_anna.user_service.exceptions.AvatarUploadRejectedException;
+import dev.ilya_anna.user_service.exceptions.InvalidImageFormatException;
+import dev.ilya_anna.user_service.exceptions.UserNotFoundException;
+
+import java.io.InputStream;
+
+public interface AvatarUploadService {
+    AvatarUploadDto submitUpload(String userId, String filename, InputStream content)
+            throws UserNotFoundException, InvalidImageFormatException, AvatarTooLargeException,
+            AvatarUploadRejectedException;
+
+    AvatarUploadDto getUpload(String userId, String uploadId) throws AvatarUploadNotFoundException;
+}
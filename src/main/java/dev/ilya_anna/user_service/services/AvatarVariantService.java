@@ -0,0 +1,9 @@
+package dev.ilya_anna.user_service.services;
+
+import dev.ilya_anna.user_service.entities.AvatarMetadata;
+
+public interface AvatarVariantService {
+    String getVariantId(String avatarId, Integer size);
+
+    void generateVariants(AvatarMetadata original);
+}
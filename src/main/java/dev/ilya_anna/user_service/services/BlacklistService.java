@@ -2,7 +2,11 @@ package dev.ilya_anna.user_service.services;
 
 import dev.ilya_anna.user_service.events.UserSignOutEvent;
 
+import java.time.Instant;
+import java.util.List;
+
 public interface BlacklistService {
-    boolean isInBlacklist(String userId);
-    void addToBlacklist(UserSignOutEvent userSignOutEvent);
+    boolean isInBlacklist(String userId, Instant issuedAt);
+    void addToBlacklist(List<UserSignOutEvent> userSignOutEvents);
+    void cacheSignOutMarks(List<UserSignOutEvent> userSignOutEvents);
 }
@@ -0,0 +1,167 @@
+package dev.ilya_anna.user_service.services;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Slf4j
+@Service
+public class CachingAnnouncementsCountService implements AnnouncementsCountService {
+    @Value("${app.announcements.count.ttl:30}")
+    private long ttl;
+
+    @Value("${app.announcements.count.max-stale:3600}")
+    private long maxStale;
+
+    @Value("${app.announcements.count.max-size:100000}")
+    private long maxSize;
+
+    @Value("${app.announcements.count.timeout:500}")
+    private long timeout;
+
+    @Value("${app.announcements.count.batch-endpoint.enabled:false}")
+    private boolean batchEndpointEnabled;
+
+    @Value("${app.announcements.count.concurrency:16}")
+    private int concurrency;
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ExecutorService executor;
+
+    private Semaphore requestPermits;
+
+    private AsyncLoadingCache<String, Integer> announcementsCounts;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        requestPermits = new Semaphore(concurrency);
+        announcementsCounts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(Duration.ofSeconds(ttl))
+                .expireAfterWrite(Duration.ofSeconds(maxStale))
+                .executor(executor)
+                .recordStats()
+                .buildAsync(new AnnouncementsCountLoader());
+        CaffeineCacheMetrics.monitor(meterRegistry, announcementsCounts.synchronous(), "announcementsCounts");
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    @Override
+    public Integer getAnnouncementsCount(String userId) {
+        try {
+            return announcementsCounts.get(userId).get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Timed out fetching announcements count for user {}", userId);
+            return null;
+        } catch (ExecutionException e) {
+            log.warn("Failed to fetch announcements count for user {}", userId, e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    @Override
+    public Map<String, Integer> getAnnouncementsCounts(Collection<String> userIds) {
+        try {
+            return announcementsCounts.getAll(userIds).get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Timed out fetching announcements counts for {} users", userIds.size());
+        } catch (ExecutionException e) {
+            log.warn("Failed to fetch announcements counts for {} users", userIds.size(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return announcementsCounts.synchronous().getAllPresent(userIds);
+    }
+
+    @Override
+    public void refreshAnnouncementsCount(String userId) {
+        if (announcementsCounts.getIfPresent(userId) != null) {
+            announcementsCounts.synchronous().refresh(userId);
+        }
+    }
+
+    private class AnnouncementsCountLoader implements CacheLoader<String, Integer> {
+        @Override
+        public Integer load(String userId) throws InterruptedException {
+            String url = "/api/v1/announcement/get-announcements-count?userId=" + userId;
+            requestPermits.acquire();
+            try {
+                return restTemplate.getForObject(url, Integer.class, userId);
+            } finally {
+                requestPermits.release();
+            }
+        }
+
+        @Override
+        public Map<String, Integer> loadAll(Set<? extends String> userIds) throws InterruptedException {
+            if (!batchEndpointEnabled) {
+                return loadEach(userIds);
+            }
+            ResponseEntity<Map<String, Integer>> response = restTemplate.exchange(
+                    "/api/v1/announcement/get-announcements-counts",
+                    HttpMethod.POST,
+                    new HttpEntity<>(userIds),
+                    new ParameterizedTypeReference<Map<String, Integer>>() {});
+            Map<String, Integer> counts = response.getBody();
+            return counts == null ? Map.of() : counts;
+        }
+
+        private Map<String, Integer> loadEach(Set<? extends String> userIds) throws InterruptedException {
+            Map<String, Future<Integer>> futures = new HashMap<>();
+            for (String userId : userIds) {
+                futures.put(userId, executor.submit(() -> load(userId)));
+            }
+            Map<String, Integer> counts = new HashMap<>();
+            for (Map.Entry<String, Future<Integer>> entry : futures.entrySet()) {
+                try {
+                    Integer count = entry.getValue().get();
+                    if (count != null) {
+                        counts.put(entry.getKey(), count);
+                    }
+                } catch (ExecutionException e) {
+                    log.warn("Failed to fetch announcements count for user {}", entry.getKey(), e.getCause());
+                }
+            }
+            return counts;
+        }
+    }
+}
@@ -1,22 +1,40 @@
 package dev.ilya_anna.user_service.services;
 
+import dev.ilya_anna.user_service.caches.AvatarBytesCache;
+import dev.ilya_anna.user_service.caches.CachedAvatar;
+import dev.ilya_anna.user_service.caches.PresignedUrlCache;
+import dev.ilya_anna.user_service.caches.UserProfileCache;
 import dev.ilya_anna.user_service.dto.UserDto;
 import dev.ilya_anna.user_service.entities.AvatarMetadata;
 import dev.ilya_anna.user_service.entities.User;
 import dev.ilya_anna.user_service.exceptions.AvatarNotFoundException;
+import dev.ilya_anna.user_service.exceptions.AvatarTooLargeException;
 import dev.ilya_anna.user_service.exceptions.InvalidImageFormatException;
 import dev.ilya_anna.user_service.exceptions.UserNotFoundException;
 import dev.ilya_anna.user_service.repositories.AvatarMetadataRepository;
 import dev.ilya_anna.user_service.repositories.UserRepository;
+import dev.ilya_anna.user_service.validators.AvatarImageType;
+import dev.ilya_anna.user_service.validators.AvatarImageValidator;
+import dev.ilya_anna.user_service.validators.ValidatedImage;
 import io.minio.*;
+import io.minio.errors.ErrorResponseException;
+import io.minio.http.Method;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.core.io.Resource;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.ZonedDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
@@ -25,7 +43,7 @@ public class DaoAvatarService implements AvatarService{
     private UserRepository userRepository;
 
     @Autowired
-    private UserService userService;
+    private AnnouncementsCountService announcementsCountService;
 
     @Autowired
     private AvatarMetadataRepository avatarMetadataRepository;
@@ -34,101 +52,374 @@ public class DaoAvatarService implements AvatarService{
     private MinioClient minioClient;
 
     @Autowired UuidService uuidService;
-    private static final String BUCKET_NAME = "avatars";
-    private static final String[] ALLOWED_EXTENSIONS = {"png", "jpeg", "jpg"};
 
-    public Resource getAvatar(String avatarId){
+    @Autowired
+    private UserProfileCache userProfileCache;
+
+    @Autowired
+    private AvatarBytesCache avatarBytesCache;
+
+    @Autowired
+    private AvatarVariantService avatarVariantService;
+
+    @Autowired
+    private AvatarImageValidator avatarImageValidator;
+
+    @Autowired
+    private PresignedUrlCache presignedUrlCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    @Qualifier("presigningMinioClient")
+    private MinioClient presigningMinioClient;
+
+    @Value("${app.avatar.upload.part-size:5242880}")
+    private long partSize;
+
+    static final String BUCKET_NAME = "avatars";
+    private static final String PRESIGNED_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final String STAGING_PREFIX = "staging/";
+    private static final String NO_SUCH_KEY = "NoSuchKey";
+    private static final String ACQUIRE_AVATAR_SQL =
+            "insert into avatars_metadata (id, avatar_path, content_type, content_length, etag, ref_count) " +
+            "values (?, ?, ?, ?, ?, 1) " +
+            "on conflict (id) do update set ref_count = avatars_metadata.ref_count + 1, superseded_at = null " +
+            "returning ref_count";
+    private static final String SWAP_AVATAR_SQL =
+            "update users u set avatar_image_id = ? " +
+            "from (select id, avatar_image_id from users where id = ? for update) previous " +
+            "where u.id = previous.id returning previous.avatar_image_id";
+
+    public String getVariantId(String avatarId, Integer size){
+        return avatarVariantService.getVariantId(avatarId, size);
+    }
+
+    public AvatarMetadata getAvatarMetadata(String avatarId, Integer size){
+        String variantId = avatarVariantService.getVariantId(avatarId, size);
+        if (!variantId.equals(avatarId)) {
+            try {
+                return getAvatarMetadata(variantId);
+            } catch (AvatarNotFoundException e) {
+                log.debug("Variant {} is not available yet, serving the original avatar", variantId);
+            }
+        }
+        return getAvatarMetadata(avatarId);
+    }
+
+    private AvatarMetadata getAvatarMetadata(String avatarId){
+        CachedAvatar cachedAvatar = avatarBytesCache.get(avatarId);
+        // disk entries may predate a restart and the evictions published while the node was down
+        if (cachedAvatar != null && AvatarBytesCache.DISK_TIER.equals(cachedAvatar.tier())
+                && !avatarMetadataRepository.existsById(avatarId)) {
+            avatarBytesCache.evict(avatarId);
+            cachedAvatar = null;
+        }
+        if (cachedAvatar != null) {
+            return cachedAvatar.metadata();
+        }
 
         AvatarMetadata avatarMetadata = avatarMetadataRepository.findById(avatarId).orElseThrow(
                 () -> new AvatarNotFoundException("avatar with id " + avatarId + " not found"));
 
+        if (avatarMetadata.getContentLength() == null || avatarMetadata.getEtag() == null) {
+            backfillContentMetadata(avatarMetadata);
+        }
+        return avatarMetadata;
+    }
+
+    public InputStream getAvatarContent(AvatarMetadata avatarMetadata, long offset, long length){
+        CachedAvatar cachedAvatar = avatarBytesCache.get(avatarMetadata.getId());
+        if (cachedAvatar == null && avatarBytesCache.isCacheable(avatarMetadata.getContentLength())) {
+            cachedAvatar = avatarBytesCache.put(avatarMetadata, readAvatar(avatarMetadata));
+        }
+        if (cachedAvatar != null) {
+            avatarBytesCache.recordServed(cachedAvatar.tier(), length);
+            return cachedAvatar.openStream(offset, length);
+        }
+
+        GetObjectArgs.Builder args = GetObjectArgs.builder()
+                .bucket(BUCKET_NAME)
+                .object(avatarMetadata.getAvatarPath());
+        if (offset > 0 || length < avatarMetadata.getContentLength()) {
+            args.offset(offset).length(length);
+        }
+
         try{
-            InputStream stream = minioClient.getObject(
-                    GetObjectArgs.builder()
-                            .bucket(BUCKET_NAME)
-                            .object(avatarMetadata.getAvatarPath())
-                            .build());
-            return new InputStreamResource(stream);
+            InputStream stream = minioClient.getObject(args.build());
+            avatarBytesCache.recordServed(AvatarBytesCache.STORAGE_TIER, length);
+            return stream;
         }
         catch (Exception e) {
-            log.error("Failed to get avatar with id " + avatarId, e);
-            throw new RuntimeException("Failed to get avatar with id " + avatarId, e);
+            log.error("Failed to get avatar with id " + avatarMetadata.getId(), e);
+            throw new RuntimeException("Failed to get avatar with id " + avatarMetadata.getId(), e);
         }
     }
 
-    public UserDto updateAvatar(String userId, MultipartFile avatarFile){
-        String originalFilename = avatarFile.getOriginalFilename();
-        String fileExtension = getFileExtension(originalFilename);
+    public String getAvatarUrl(AvatarMetadata avatarMetadata){
+        return presignedUrlCache.get(avatarMetadata.getId(), () -> presignAvatarUrl(avatarMetadata));
+    }
 
-        if (!isValidExtension(fileExtension)) {
-            throw new InvalidImageFormatException("Only PNG and JPEG/JPG images are allowed");
-        }
+    public UserDto updateAvatar(String userId, String filename, InputStream content){
+        avatarImageValidator.validateFilename(filename);
 
         User user = userRepository.findById(userId).orElseThrow(
                 () -> new UserNotFoundException("User with id " + userId + " not found"));
 
-        String avatarId = uuidService.generate();
-        String avatarPath = String.format("users/%s/avatar/%s.%s", userId, avatarId, fileExtension);
+        AvatarMetadata avatarMetadata = storeAvatar(content, -1);
+        replaceAvatar(userId, avatarMetadata);
+        user.setAvatarImageId(avatarMetadata.getId());
 
-        if (user.getAvatarImageId() != null) {
-            removeOldAvatar(user.getAvatarImageId());
-        }
+        return UserDto.builder()
+                .name(user.getName())
+                .surname(user.getSurname())
+                .nickname(user.getNickname())
+                .email(user.getEmail())
+                .phone(user.getPhone())
+                .address(user.getAddress())
+                .registeredAt(user.getRegisteredAt())
+                .announcementsCount(announcementsCountService.getAnnouncementsCount(userId))
+                .about(user.getAbout())
+                .avatarImageId(user.getAvatarImageId())
+                .build();
+    }
 
+    public AvatarMetadata storeAvatar(InputStream content, long size){
+        String stagingPath = STAGING_PREFIX + uuidService.generate();
+        AvatarImageType imageType;
+        String hash;
+        long length;
         try {
-            InputStream inputStream = avatarFile.getInputStream();
+            ValidatedImage image = avatarImageValidator.validate(content, size);
+            imageType = image.type();
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
             minioClient.putObject(
                     PutObjectArgs.builder()
                             .bucket(BUCKET_NAME)
-                            .object(avatarPath)
-                            .stream(inputStream, avatarFile.getSize(), -1)
-                            .contentType(avatarFile.getContentType())
+                            .object(stagingPath)
+                            .stream(new DigestInputStream(image.content(), digest), size, size < 0 ? partSize : -1)
+                            .contentType(imageType.getContentType())
                             .build());
+            hash = HexFormat.of().formatHex(digest.digest());
+            length = image.content().getBytesRead();
+        }
+        catch (InvalidImageFormatException | AvatarTooLargeException e){
+            removeStagingObject(stagingPath);
+            throw e;
         }
         catch (Exception e){
-            log.error("Failed to upload avatar with id " + avatarId, e);
-            throw new RuntimeException("Failed to upload avatar for user with id " + userId);
+            removeStagingObject(stagingPath);
+            AvatarTooLargeException tooLarge = findCause(e, AvatarTooLargeException.class);
+            if (tooLarge != null) {
+                throw tooLarge;
+            }
+            InvalidImageFormatException invalidFormat = findCause(e, InvalidImageFormatException.class);
+            if (invalidFormat != null) {
+                throw invalidFormat;
+            }
+            log.error("Failed to upload avatar to " + stagingPath, e);
+            throw new RuntimeException("Failed to upload avatar");
         }
 
-        AvatarMetadata avatarMetadata = new AvatarMetadata();
-        avatarMetadata.setId(avatarId);
-        avatarMetadata.setAvatarPath(avatarPath);
-        avatarMetadataRepository.save(avatarMetadata);
+        try {
+            AvatarMetadata avatarMetadata = AvatarMetadata.builder()
+                    .id(hash)
+                    .avatarPath(String.format("content/%s.%s", hash, imageType.getExtension()))
+                    .contentType(imageType.getContentType())
+                    .contentLength(length)
+                    .etag(hash)
+                    .build();
+            Integer refCount = jdbcTemplate.queryForObject(ACQUIRE_AVATAR_SQL, Integer.class,
+                    avatarMetadata.getId(), avatarMetadata.getAvatarPath(), avatarMetadata.getContentType(),
+                    avatarMetadata.getContentLength(), avatarMetadata.getEtag());
+            try {
+                // checked after acquiring: a held reference keeps the cleaner away from the object
+                if (ensureStored(stagingPath, avatarMetadata)) {
+                    avatarVariantService.generateVariants(avatarMetadata);
+                } else {
+                    log.debug("Avatar {} is already stored, {} references", hash, refCount);
+                }
+            }
+            catch (RuntimeException e) {
+                releaseReference(avatarMetadata.getId(), e);
+                throw e;
+            }
+            return avatarMetadata;
+        }
+        finally {
+            removeStagingObject(stagingPath);
+        }
+    }
 
-        user.setAvatarImageId(avatarId);
-        userRepository.save(user);
+    public void replaceAvatar(String userId, AvatarMetadata avatarMetadata){
+        List<String> previousAvatarIds;
+        try {
+            previousAvatarIds = jdbcTemplate.query(SWAP_AVATAR_SQL,
+                    (resultSet, rowNum) -> resultSet.getString(1), avatarMetadata.getId(), userId);
+            if (previousAvatarIds.isEmpty()) {
+                throw new UserNotFoundException("User with id " + userId + " not found");
+            }
+        }
+        catch (RuntimeException e) {
+            // the reference taken by storeAvatar only passes to the user once the swap succeeds
+            releaseReference(avatarMetadata.getId(), e);
+            throw e;
+        }
+        userProfileCache.evict(userId);
 
-        return UserDto.builder()
-                .name(user.getName())
-                .surname(user.getSurname())
-                .nickname(user.getNickname())
-                .email(user.getEmail())
-                .phone(user.getPhone())
-                .address(user.getAddress())
-                .registeredAt(user.getRegisteredAt())
-                .announcementsCount(userService.getAnnouncementsCount(userId))
-                .about(user.getAbout())
-                .avatarImageId(user.getAvatarImageId())
-                .build();
+        String previousAvatarId = previousAvatarIds.getFirst();
+        if (previousAvatarId != null) {
+            avatarMetadataRepository.release(previousAvatarId, ZonedDateTime.now());
+        }
+    }
+
+    private boolean ensureStored(String stagingPath, AvatarMetadata avatarMetadata) {
+        try {
+            if (objectExists(avatarMetadata.getAvatarPath())) {
+                return false;
+            }
+            minioClient.copyObject(
+                    CopyObjectArgs.builder()
+                            .bucket(BUCKET_NAME)
+                            .object(avatarMetadata.getAvatarPath())
+                            .source(CopySource.builder()
+                                    .bucket(BUCKET_NAME)
+                                    .object(stagingPath)
+                                    .build())
+                            .build());
+            return true;
+        }
+        catch (Exception e) {
+            log.error("Failed to store avatar with id " + avatarMetadata.getId(), e);
+            throw new RuntimeException("Failed to upload avatar");
+        }
     }
 
+    private void releaseReference(String avatarId, RuntimeException cause) {
+        try {
+            avatarMetadataRepository.release(avatarId, ZonedDateTime.now());
+        }
+        catch (RuntimeException e) {
+            cause.addSuppressed(e);
+            log.error("Failed to release a reference to avatar with id " + avatarId, e);
+        }
+    }
 
-    private void removeOldAvatar(String avatarId){
+    private boolean objectExists(String path) throws Exception {
+        try {
+            minioClient.statObject(
+                    StatObjectArgs.builder()
+                            .bucket(BUCKET_NAME)
+                            .object(path)
+                            .build());
+            return true;
+        }
+        catch (ErrorResponseException e) {
+            if (NO_SUCH_KEY.equals(e.errorResponse().code())) {
+                return false;
+            }
+            throw e;
+        }
+    }
 
-        AvatarMetadata avatarMetadata = avatarMetadataRepository.findById(avatarId)
-                .orElseThrow(() -> new AvatarNotFoundException("Avatar metadata not found"));
+    private static <T extends Throwable> T findCause(Throwable throwable, Class<T> type) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return type.cast(cause);
+            }
+        }
+        return null;
+    }
 
-        try{
+    private void removeStagingObject(String stagingPath) {
+        try {
             minioClient.removeObject(
                     RemoveObjectArgs.builder()
+                            .bucket(BUCKET_NAME)
+                            .object(stagingPath)
+                            .build());
+        }
+        catch (Exception e) {
+            log.warn("Failed to remove staged avatar {}", stagingPath, e);
+        }
+    }
+
+    private String presignAvatarUrl(AvatarMetadata avatarMetadata) {
+        try {
+            return presigningMinioClient.getPresignedObjectUrl(
+                    GetPresignedObjectUrlArgs.builder()
+                            .method(Method.GET)
                             .bucket(BUCKET_NAME)
                             .object(avatarMetadata.getAvatarPath())
+                            .expiry((int) presignedUrlCache.getUrlTtl(), TimeUnit.SECONDS)
+                            .extraQueryParams(Map.of(
+                                    "response-cache-control", PRESIGNED_CACHE_CONTROL,
+                                    "response-content-type", avatarMetadata.getContentType()))
                             .build());
         }
+        catch (Exception e) {
+            log.error("Failed to presign avatar with id " + avatarMetadata.getId(), e);
+            throw new RuntimeException("Failed to get avatar with id " + avatarMetadata.getId(), e);
+        }
+    }
+
+    private byte[] readAvatar(AvatarMetadata avatarMetadata) {
+        try (InputStream stream = minioClient.getObject(
+                GetObjectArgs.builder()
+                        .bucket(BUCKET_NAME)
+                        .object(avatarMetadata.getAvatarPath())
+                        .build())) {
+            return stream.readAllBytes();
+        }
+        catch (Exception e) {
+            log.error("Failed to get avatar with id " + avatarMetadata.getId(), e);
+            throw new RuntimeException("Failed to get avatar with id " + avatarMetadata.getId(), e);
+        }
+    }
+
+    private void backfillContentMetadata(AvatarMetadata avatarMetadata) {
+        StatObjectResponse stat;
+        try {
+            stat = minioClient.statObject(
+                    StatObjectArgs.builder()
+                            .bucket(BUCKET_NAME)
+                            .object(avatarMetadata.getAvatarPath())
+                            .build());
+        }
+        catch (ErrorResponseException e) {
+            if (NO_SUCH_KEY.equals(e.errorResponse().code())) {
+                log.warn("Object of avatar with id {} is missing from storage", avatarMetadata.getId());
+                throw new AvatarNotFoundException("avatar with id " + avatarMetadata.getId() + " not found");
+            }
+            log.error("Failed to stat avatar with id " + avatarMetadata.getId(), e);
+            throw new RuntimeException("Failed to get avatar with id " + avatarMetadata.getId(), e);
+        }
         catch (Exception e){
-            log.error("Failed to delete avatar with id " + avatarId, e);
-            throw new RuntimeException("Failed to delete avatar with id " + avatarId);
+            log.error("Failed to stat avatar with id " + avatarMetadata.getId(), e);
+            throw new RuntimeException("Failed to get avatar with id " + avatarMetadata.getId(), e);
+        }
+
+        String contentType = stat.contentType();
+        if (contentType == null || MediaType.APPLICATION_OCTET_STREAM_VALUE.equals(contentType)) {
+            contentType = getContentType(getFileExtension(avatarMetadata.getAvatarPath()));
         }
+        avatarMetadata.setContentType(contentType);
+        avatarMetadata.setContentLength(stat.size());
+        avatarMetadata.setEtag(normalizeEtag(stat.etag(), avatarMetadata.getId()));
+        avatarMetadataRepository.updateContentMetadata(avatarMetadata.getId(), avatarMetadata.getContentType(),
+                avatarMetadata.getContentLength(), avatarMetadata.getEtag());
+    }
+
+    private String normalizeEtag(String etag, String avatarId) {
+        if (etag == null || etag.isBlank()) {
+            return avatarId;
+        }
+        return etag.replace("\"", "");
+    }
 
+    private String getContentType(String extension) {
+        return "png".equals(extension) ? MediaType.IMAGE_PNG_VALUE : MediaType.IMAGE_JPEG_VALUE;
     }
 
     private String getFileExtension(String filename) {
@@ -137,13 +428,4 @@ public class DaoAvatarService implements AvatarService{
         }
         return filename.substring(filename.lastIndexOf(".") + 1).toLowerCase();
     }
-
-    private boolean isValidExtension(String extension) {
-        for (String allowed : ALLOWED_EXTENSIONS) {
-            if (allowed.equalsIgnoreCase(extension)) {
-                return true;
-            }
-        }
-        return false;
-    }
 }
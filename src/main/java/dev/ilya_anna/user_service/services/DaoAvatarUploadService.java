@@ -0,0 +1,178 @@
+package dev.ilya_anna.user_service.services;
+
+import dev.ilya_anna.user_service.dto.AvatarUploadDto;
+import dev.ilya_anna.user_service.entities.AvatarMetadata;
+import dev.ilya_anna.user_service.entities.AvatarUpload;
+import dev.ilya_anna.user_service.entities.AvatarUploadStatus;
+import dev.ilya_anna.user_service.exceptions.AvatarTooLargeException;
+import dev.ilya_anna.user_service.exceptions.AvatarUploadNotFoundException;
+import dev.ilya_anna.user_service.exceptions.AvatarUploadRejectedException;
+import dev.ilya_anna.user_service.exceptions.InvalidImageFormatException;
+import dev.ilya_anna.user_service.exceptions.UserNotFoundException;
+import dev.ilya_anna.user_service.repositories.AvatarUploadRepository;
+import dev.ilya_anna.user_service.repositories.UserRepository;
+import dev.ilya_anna.user_service.validators.AvatarImageValidator;
+import dev.ilya_anna.user_service.validators.ValidatedImage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+public class DaoAvatarUploadService implements AvatarUploadService {
+    private static final String SPOOL_SUFFIX = ".upload";
+
+    @Value("${app.avatar.upload.async.spool-directory:}")
+    private String spoolDirectory;
+
+    @Value("${app.avatar.upload.async.threads:2}")
+    private int threads;
+
+    @Value("${app.avatar.upload.async.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Autowired
+    private AvatarService avatarService;
+
+    @Autowired
+    private AvatarImageValidator avatarImageValidator;
+
+    @Autowired
+    private AvatarUploadRepository avatarUploadRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UuidService uuidService;
+
+    private Path spoolPath;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() throws IOException {
+        spoolPath = spoolDirectory.isBlank()
+                ? Path.of(System.getProperty("java.io.tmpdir"), "avatar-uploads")
+                : Path.of(spoolDirectory);
+        Files.createDirectories(spoolPath);
+        failInterruptedUploads();
+
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("avatar-uploads-", 0).daemon().factory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public AvatarUploadDto submitUpload(String userId, String filename, InputStream content) {
+        avatarImageValidator.validateFilename(filename);
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException("User with id " + userId + " not found");
+        }
+
+        String uploadId = uuidService.generate();
+        Path spoolFile = spoolPath.resolve(uploadId + SPOOL_SUFFIX);
+        long size;
+        try {
+            ValidatedImage image = avatarImageValidator.validate(content, -1);
+            Files.copy(image.content(), spoolFile);
+            size = image.content().getBytesRead();
+        }
+        catch (InvalidImageFormatException | AvatarTooLargeException e) {
+            deleteSpoolFile(spoolFile);
+            throw e;
+        }
+        catch (IOException e) {
+            deleteSpoolFile(spoolFile);
+            log.error("Failed to spool avatar upload with id " + uploadId, e);
+            throw new RuntimeException("Failed to upload avatar for user with id " + userId);
+        }
+
+        AvatarUpload avatarUpload = AvatarUpload.builder()
+                .id(uploadId)
+                .userId(userId)
+                .status(AvatarUploadStatus.PENDING)
+                .build();
+        avatarUploadRepository.save(avatarUpload);
+        try {
+            executor.execute(() -> processUpload(avatarUpload, spoolFile, size));
+        } catch (RejectedExecutionException e) {
+            deleteSpoolFile(spoolFile);
+            avatarUploadRepository.deleteById(uploadId);
+            throw new AvatarUploadRejectedException("Avatar upload queue is full");
+        }
+        return AvatarUploadDto.fromAvatarUpload(avatarUpload);
+    }
+
+    public AvatarUploadDto getUpload(String userId, String uploadId) {
+        return avatarUploadRepository.findById(uploadId)
+                .filter(avatarUpload -> userId.equals(avatarUpload.getUserId()))
+                .map(AvatarUploadDto::fromAvatarUpload)
+                .orElseThrow(() -> new AvatarUploadNotFoundException(
+                        "Avatar upload with id " + uploadId + " not found"));
+    }
+
+    private void processUpload(AvatarUpload avatarUpload, Path spoolFile, long size) {
+        try (InputStream inputStream = Files.newInputStream(spoolFile)) {
+            AvatarMetadata avatarMetadata = avatarService.storeAvatar(inputStream, size);
+            avatarService.replaceAvatar(avatarUpload.getUserId(), avatarMetadata);
+            avatarUpload.setAvatarId(avatarMetadata.getId());
+            avatarUpload.setStatus(AvatarUploadStatus.COMPLETED);
+        }
+        catch (InvalidImageFormatException | AvatarTooLargeException | UserNotFoundException e) {
+            avatarUpload.setStatus(AvatarUploadStatus.FAILED);
+            avatarUpload.setError(e.getMessage());
+        }
+        catch (Exception e) {
+            log.error("Failed to process avatar upload with id " + avatarUpload.getId(), e);
+            avatarUpload.setStatus(AvatarUploadStatus.FAILED);
+            avatarUpload.setError("Failed to store avatar");
+        }
+        finally {
+            deleteSpoolFile(spoolFile);
+        }
+        avatarUploadRepository.save(avatarUpload);
+    }
+
+    private void failInterruptedUploads() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolPath, "*" + SPOOL_SUFFIX)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String uploadId = fileName.substring(0, fileName.length() - SPOOL_SUFFIX.length());
+                avatarUploadRepository.findById(uploadId)
+                        .filter(avatarUpload -> avatarUpload.getStatus() == AvatarUploadStatus.PENDING)
+                        .ifPresent(avatarUpload -> {
+                            avatarUpload.setStatus(AvatarUploadStatus.FAILED);
+                            avatarUpload.setError("Upload was interrupted");
+                            avatarUploadRepository.save(avatarUpload);
+                        });
+                deleteSpoolFile(file);
+            }
+        }
+    }
+
+    private void deleteSpoolFile(Path spoolFile) {
+        try {
+            Files.deleteIfExists(spoolFile);
+        } catch (IOException e) {
+            log.warn("Failed to delete spooled avatar {}", spoolFile, e);
+        }
+    }
+}
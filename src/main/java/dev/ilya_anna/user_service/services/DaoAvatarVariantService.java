@@ -0,0 +1,282 @@
+package dev.ilya_anna.user_service.services;
+
+import dev.ilya_anna.user_service.entities.AvatarMetadata;
+import dev.ilya_anna.user_service.repositories.AvatarMetadataRepository;
+import io.minio.GetObjectArgs;
+import io.minio.MinioClient;
+import io.minio.ObjectWriteResponse;
+import io.minio.PutObjectArgs;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+public class DaoAvatarVariantService implements AvatarVariantService {
+    @Value("${app.avatar.variants.sizes:64,128,512}")
+    private int[] sizes;
+
+    @Value("${app.avatar.variants.threads:2}")
+    private int threads;
+
+    @Value("${app.avatar.variants.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${app.avatar.variants.jpeg-quality:0.85}")
+    private float jpegQuality;
+
+    @Autowired
+    private AvatarMetadataRepository avatarMetadataRepository;
+
+    @Autowired
+    private MinioClient minioClient;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        sizes = Arrays.stream(sizes).filter(size -> size > 0).sorted().distinct().toArray();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("avatar-variants-", 0).daemon().factory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public String getVariantId(String avatarId, Integer size) {
+        if (size == null) {
+            return avatarId;
+        }
+        for (int variantSize : sizes) {
+            if (variantSize >= size) {
+                return variantId(avatarId, variantSize);
+            }
+        }
+        return avatarId;
+    }
+
+    public void generateVariants(AvatarMetadata original) {
+        try {
+            executor.execute(() -> createVariants(original));
+        } catch (RejectedExecutionException e) {
+            log.warn("Variant queue is full, avatar {} will be served in its original size", original.getId());
+        }
+    }
+
+    private void createVariants(AvatarMetadata original) {
+        BufferedImage source;
+        int orientation;
+        try (InputStream stream = minioClient.getObject(
+                GetObjectArgs.builder()
+                        .bucket(DaoAvatarService.BUCKET_NAME)
+                        .object(original.getAvatarPath())
+                        .build())) {
+            byte[] content = stream.readAllBytes();
+            orientation = readExifOrientation(content);
+            source = ImageIO.read(new ByteArrayInputStream(content));
+        } catch (Exception e) {
+            log.warn("Failed to decode avatar {}, no variants created", original.getId(), e);
+            return;
+        }
+        if (source == null) {
+            log.warn("Unsupported image for avatar {}, no variants created", original.getId());
+            return;
+        }
+        // ImageIO ignores exif orientation and the re-encoded variants carry no exif
+        source = orient(source, orientation);
+
+        boolean png = MediaType.IMAGE_PNG_VALUE.equals(original.getContentType());
+        for (int size : sizes) {
+            try {
+                byte[] variant = encode(resize(source, size, png), png);
+                storeVariant(original, size, variant, png);
+            } catch (Exception e) {
+                log.error("Failed to create variant {} of avatar {}", size, original.getId(), e);
+            }
+        }
+    }
+
+    private void storeVariant(AvatarMetadata original, int size, byte[] variant, boolean png) throws Exception {
+        String contentType = png ? MediaType.IMAGE_PNG_VALUE : MediaType.IMAGE_JPEG_VALUE;
+        String variantPath = variantPath(original, size);
+        ObjectWriteResponse response = minioClient.putObject(
+                PutObjectArgs.builder()
+                        .bucket(DaoAvatarService.BUCKET_NAME)
+                        .object(variantPath)
+                        .stream(new ByteArrayInputStream(variant), variant.length, -1)
+                        .contentType(contentType)
+                        .build());
+
+        String variantId = variantId(original.getId(), size);
+        avatarMetadataRepository.save(AvatarMetadata.builder()
+                .id(variantId)
+                .avatarPath(variantPath)
+                .contentType(contentType)
+                .contentLength((long) variant.length)
+                .etag(response.etag() == null ? variantId : response.etag().replace("\"", ""))
+                .originalId(original.getId())
+                .build());
+    }
+
+    private BufferedImage resize(BufferedImage source, int size, boolean png) {
+        int type = png ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        double scale = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D graphics = step.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(current, 0, 0, width, height, null);
+            graphics.dispose();
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    static BufferedImage orient(BufferedImage source, int orientation) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, width, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, width, height);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, height);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, height, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, height, width);
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, width);
+            default -> null;
+        };
+        if (transform == null) {
+            return source;
+        }
+
+        boolean swapsSides = orientation >= 5;
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage oriented = new BufferedImage(swapsSides ? height : width, swapsSides ? width : height, type);
+        Graphics2D graphics = oriented.createGraphics();
+        graphics.drawImage(source, transform, null);
+        graphics.dispose();
+        return oriented;
+    }
+
+    static int readExifOrientation(byte[] image) {
+        if (image.length < 4 || (image[0] & 0xFF) != 0xFF || (image[1] & 0xFF) != 0xD8) {
+            return 1;
+        }
+        try {
+            int position = 2;
+            while (position + 4 <= image.length && (image[position] & 0xFF) == 0xFF) {
+                int marker = image[position + 1] & 0xFF;
+                if (marker == 0xDA || marker == 0xD9) {
+                    return 1;
+                }
+                int length = readShort(image, position + 2, false);
+                if (marker == 0xE1 && length >= 8 && isExifHeader(image, position + 4)) {
+                    return readTiffOrientation(image, position + 10);
+                }
+                position += 2 + length;
+            }
+        } catch (IndexOutOfBoundsException e) {
+            log.debug("Truncated exif segment, orientation ignored");
+        }
+        return 1;
+    }
+
+    private static boolean isExifHeader(byte[] image, int offset) {
+        return image[offset] == 'E' && image[offset + 1] == 'x' && image[offset + 2] == 'i'
+                && image[offset + 3] == 'f' && image[offset + 4] == 0 && image[offset + 5] == 0;
+    }
+
+    private static int readTiffOrientation(byte[] image, int tiff) {
+        boolean littleEndian = image[tiff] == 'I' && image[tiff + 1] == 'I';
+        int directory = tiff + readInt(image, tiff + 4, littleEndian);
+        int entries = readShort(image, directory, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = directory + 2 + i * 12;
+            if (readShort(image, entry, littleEndian) == 0x0112) {
+                int orientation = readShort(image, entry + 8, littleEndian);
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static int readShort(byte[] data, int offset, boolean littleEndian) {
+        int first = data[offset] & 0xFF;
+        int second = data[offset + 1] & 0xFF;
+        return littleEndian ? second << 8 | first : first << 8 | second;
+    }
+
+    private static int readInt(byte[] data, int offset, boolean littleEndian) {
+        int first = readShort(data, offset, littleEndian);
+        int second = readShort(data, offset + 2, littleEndian);
+        return littleEndian ? second << 16 | first : first << 16 | second;
+    }
+
+    private byte[] encode(BufferedImage image, boolean png) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        if (png) {
+            ImageIO.write(image, "png", output);
+            return output.toByteArray();
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream imageOutput = ImageIO.createImageOutputStream(output)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.setOutput(imageOutput);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+
+    private static String variantId(String avatarId, int size) {
+        return avatarId + "_" + size;
+    }
+
+    private static String variantPath(AvatarMetadata original, int size) {
+        String path = original.getAvatarPath();
+        int extensionStart = path.lastIndexOf('.');
+        if (extensionStart == -1) {
+            return path + "_" + size;
+        }
+        return path.substring(0, extensionStart) + "_" + size + path.substring(extensionStart);
+    }
+}
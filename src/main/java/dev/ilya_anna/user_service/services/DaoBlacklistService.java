@@ -1,35 +1,125 @@
 package dev.ilya_anna.user_service.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import dev.ilya_anna.user_service.entities.SignOutMark;
 import dev.ilya_anna.user_service.events.UserSignOutEvent;
 import dev.ilya_anna.user_service.repositories.SignOutMarkRepository;
-import jakarta.transaction.Transactional;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.util.UUID;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Service
 public class DaoBlacklistService implements BlacklistService {
+    private static final long NO_SIGN_OUT = Long.MIN_VALUE;
+
     @Value("${app.jwt.access.duration}")
     private long accessTokenDuration;
+    @Value("${app.blacklist.negative-ttl:5}")
+    private long negativeTtl;
     @Autowired
     private SignOutMarkRepository signOutMarkRepository;
 
-    public boolean isInBlacklist(String userId){
-        return signOutMarkRepository.existsByUserId(userId);
-    }
+    private Cache<String, Long> signOutMarks;
+    private Cache<String, Boolean> unmarkedUsers;
+    private Instant warmUntil;
 
-    public void addToBlacklist(UserSignOutEvent userSignOutEvent){
-        SignOutMark signOutMark = SignOutMark.builder()
-                .id(userSignOutEvent.getId())
-                .userId(userSignOutEvent.getUserId())
-                .signOutTime(userSignOutEvent.getTime())
-                .ttl(accessTokenDuration)
+    @PostConstruct
+    public void init() {
+        signOutMarks = Caffeine.newBuilder()
+                .expireAfter(new SignOutMarkExpiry())
+                .build();
+        unmarkedUsers = Caffeine.newBuilder()
+                .expireAfterWrite(negativeTtl, TimeUnit.SECONDS)
                 .build();
-        signOutMarkRepository.save(signOutMark);
+        warmUntil = Instant.now().plusSeconds(accessTokenDuration);
+    }
+
+    public boolean isInBlacklist(String userId, Instant issuedAt){
+        long lastSignOutTime = getLastSignOutTime(userId);
+        if (issuedAt == null) {
+            return lastSignOutTime != NO_SIGN_OUT;
+        }
+        return issuedAt.getEpochSecond() <= lastSignOutTime;
+    }
+
+    public void addToBlacklist(List<UserSignOutEvent> userSignOutEvents){
+        long now = Instant.now().getEpochSecond();
+        List<SignOutMark> signOutMarks = latestSignOutTimes(userSignOutEvents).entrySet().stream()
+                .map(entry -> SignOutMark.builder()
+                        .userId(entry.getKey())
+                        .signOutTime(entry.getValue())
+                        .expiresAt(entry.getValue() + accessTokenDuration)
+                        .build())
+                .filter(signOutMark -> signOutMark.getExpiresAt() > now)
+                .toList();
+        signOutMarkRepository.saveAll(signOutMarks);
+        cacheSignOutMarks(userSignOutEvents);
+    }
+
+    public void cacheSignOutMarks(List<UserSignOutEvent> userSignOutEvents) {
+        latestSignOutTimes(userSignOutEvents).forEach(this::cacheSignOutTime);
+    }
+
+    private long getLastSignOutTime(String userId) {
+        Long lastSignOutTime = signOutMarks.getIfPresent(userId);
+        if (lastSignOutTime != null) {
+            return lastSignOutTime;
+        }
+        if (Instant.now().isAfter(warmUntil) || unmarkedUsers.getIfPresent(userId) != null) {
+            return NO_SIGN_OUT;
+        }
+        return loadLastSignOutTime(userId);
+    }
+
+    private long loadLastSignOutTime(String userId) {
+        long lastSignOutTime = signOutMarkRepository.findSignOutTimeByUserId(userId)
+                .orElse(NO_SIGN_OUT);
+        if (lastSignOutTime == NO_SIGN_OUT
+                || lastSignOutTime + accessTokenDuration <= Instant.now().getEpochSecond()) {
+            unmarkedUsers.put(userId, Boolean.TRUE);
+            return NO_SIGN_OUT;
+        }
+        cacheSignOutTime(userId, lastSignOutTime);
+        return lastSignOutTime;
+    }
+
+    private Map<String, Long> latestSignOutTimes(List<UserSignOutEvent> userSignOutEvents) {
+        return userSignOutEvents.stream()
+                .collect(Collectors.toMap(UserSignOutEvent::getUserId,
+                        userSignOutEvent -> userSignOutEvent.getTime().toEpochSecond(),
+                        Math::max));
+    }
+
+    private void cacheSignOutTime(String userId, long signOutTime) {
+        signOutMarks.asMap().merge(userId, signOutTime, Math::max);
+        unmarkedUsers.invalidate(userId);
+    }
+
+    private class SignOutMarkExpiry implements Expiry<String, Long> {
+        @Override
+        public long expireAfterCreate(String userId, Long signOutTime, long currentTime) {
+            long expiresAt = signOutTime + accessTokenDuration;
+            return Math.max(0, Duration.ofSeconds(expiresAt - Instant.now().getEpochSecond()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String userId, Long signOutTime, long currentTime, long currentDuration) {
+            return expireAfterCreate(userId, signOutTime, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String userId, Long signOutTime, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
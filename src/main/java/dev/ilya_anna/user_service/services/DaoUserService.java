@@ -1,9 +1,11 @@
 package dev.ilya_anna.user_service.services;
 
+import dev.ilya_anna.user_service.caches.UserProfileCache;
 import dev.ilya_anna.user_service.dto.UpdateUserDto;
 import dev.ilya_anna.user_service.dto.UserDto;
-import dev.ilya_anna.user_service.dto.UserSettingsDto;
+import dev.ilya_anna.user_service.dto.UserProfile;
 import dev.ilya_anna.user_service.entities.User;
+import dev.ilya_anna.user_service.entities.Visibility;
 import dev.ilya_anna.user_service.events.UserChangedEvent;
 import dev.ilya_anna.user_service.events.UserCreatedEvent;
 import dev.ilya_anna.user_service.exceptions.UserNotFoundException;
@@ -12,63 +14,72 @@ import dev.ilya_anna.user_service.repositories.UserRepository;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
-import org.springframework.web.client.RestTemplate;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
 @Validated
 @Service
 public class DaoUserService implements UserService{
+    private static final String INSERT_USER_SQL =
+            "insert into users (id, name, surname, nickname, phone, email, registered_at) " +
+            "values (?, ?, ?, ?, ?, ?, ?) on conflict (id) do nothing";
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private UserSettingsService userSettingsService;
+    private AnnouncementsCountService announcementsCountService;
+
+    @Autowired
+    private UserChangedEventsProducer userChangedEventsProducer;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private UserProfileCache userProfileCache;
 
     @Autowired
-    private UserChangedEventsProducer userChangedEventsProducer;
+    private JdbcTemplate jdbcTemplate;
 
     public UserDto getUserAllInfo(String userId){
-        User user = userRepository.findById(userId).orElseThrow(
-                () -> new UserNotFoundException("user with id " + userId + " not found"));
+        UserProfile userProfile = getUserProfile(userId);
 
-        return UserDto.builder()
-                .name(user.getName())
-                .surname(user.getSurname())
-                .nickname(user.getNickname())
-                .email(user.getEmail())
-                .phone(user.getPhone())
-                .address(user.getAddress())
-                .registeredAt(user.getRegisteredAt())
-                .announcementsCount(getAnnouncementsCount(userId))
-                .about(user.getAbout())
-                .avatarImageId(user.getAvatarImageId())
+        return userProfile.getInfo().toBuilder()
+                .announcementsCount(announcementsCountService.getAnnouncementsCount(userId))
                 .build();
     }
 
     public UserDto getUser(String userId){
-        User user = userRepository.findById(userId).orElseThrow(
-                () -> new UserNotFoundException("user with id " + userId + " not found"));
-        UserSettingsDto userSettingsDto = userSettingsService.getUserSettings(userId);
+        UserProfile userProfile = getUserProfile(userId);
 
-        return UserDto.builder()
-                .name(userSettingsDto.isNameVisibility()?user.getName():null)
-                .surname(userSettingsDto.isSurnameVisibility()?user.getSurname():null)
-                .nickname(user.getNickname())
-                .email(userSettingsDto.isEmailVisibility()?user.getEmail():null)
-                .phone(userSettingsDto.isPhoneVisibility()?user.getPhone():null)
-                .address(userSettingsDto.isAddressVisibility()?user.getAddress():null)
-                .registeredAt(user.getRegisteredAt())
-                .announcementsCount(getAnnouncementsCount(userId))
-                .about(user.getAbout())
-                .avatarImageId(userSettingsDto.isAvatarVisibility()?user.getAvatarImageId():null)
+        return toVisibleInfo(userProfile.getInfo(), userProfile.getVisibility())
+                .announcementsCount(announcementsCountService.getAnnouncementsCount(userId))
                 .build();
     }
 
+    public List<UserDto> getUsers(List<String> userIds){
+        Map<String, User> users = userRepository.findAllWithSettingsByIdIn(new HashSet<>(userIds)).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<String, Integer> announcementsCounts = announcementsCountService.getAnnouncementsCounts(users.keySet());
+
+        return userIds.stream()
+                .filter(users::containsKey)
+                .map(userId -> {
+                    User user = users.get(userId);
+                    return toVisibleInfo(toUserInfo(user), Visibility.of(user.getUserSettings()))
+                            .announcementsCount(announcementsCounts.get(userId))
+                            .build();
+                })
+                .toList();
+    }
+
     @Transactional
     public UserDto updateUser(String userId, @Valid UpdateUserDto updateUserDto){
         User user = userRepository.findById(userId).orElseThrow(
@@ -81,6 +92,7 @@ public class DaoUserService implements UserService{
         user.setAddress(updateUserDto.getAddress());
         user.setAbout(updateUserDto.getAbout());
         userRepository.save(user);
+        userProfileCache.evict(userId);
 
         UserChangedEvent userChangedEvent = UserChangedEvent.builder()
                 .id(user.getId())
@@ -95,7 +107,7 @@ public class DaoUserService implements UserService{
                 .about(user.getAbout())
                 .build();
 
-        userChangedEventsProducer.sendUserCreatedEvent(userChangedEvent);
+        userChangedEventsProducer.sendUserChangedEvent(userChangedEvent);
 
         return UserDto.builder()
                 .name(user.getName())
@@ -105,29 +117,70 @@ public class DaoUserService implements UserService{
                 .phone(user.getPhone())
                 .address(user.getAddress())
                 .registeredAt(user.getRegisteredAt())
-                .announcementsCount(getAnnouncementsCount(userId))
+                .announcementsCount(announcementsCountService.getAnnouncementsCount(userId))
                 .about(user.getAbout())
                 .avatarImageId(user.getAvatarImageId())
                 .build();
     }
 
     @Transactional
-    public void createUser(UserCreatedEvent userCreatedEvent){
-        User user = User.builder()
-                .id(userCreatedEvent.getUserId())
-                .name(userCreatedEvent.getName())
-                .surname(userCreatedEvent.getSurname())
-                .nickname(userCreatedEvent.getNickname())
-                .phone(userCreatedEvent.getPhone())
-                .email(userCreatedEvent.getEmail())
-                .registeredAt(userCreatedEvent.getTime())
-                .build();
+    public void createUsers(List<UserCreatedEvent> userCreatedEvents){
+        Map<String, UserCreatedEvent> latestEvents = new LinkedHashMap<>();
+        for (UserCreatedEvent userCreatedEvent : userCreatedEvents) {
+            latestEvents.put(userCreatedEvent.getUserId(), userCreatedEvent);
+        }
+        if (latestEvents.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_USER_SQL, latestEvents.values(), latestEvents.size(),
+                (preparedStatement, userCreatedEvent) -> {
+                    preparedStatement.setString(1, userCreatedEvent.getUserId());
+                    preparedStatement.setString(2, userCreatedEvent.getName());
+                    preparedStatement.setString(3, userCreatedEvent.getSurname());
+                    preparedStatement.setString(4, userCreatedEvent.getNickname());
+                    preparedStatement.setString(5, userCreatedEvent.getPhone());
+                    preparedStatement.setString(6, userCreatedEvent.getEmail());
+                    preparedStatement.setObject(7, userCreatedEvent.getTime().toOffsetDateTime());
+                });
+    }
 
-        userRepository.save(user);
+    private UserProfile getUserProfile(String userId) {
+        return userProfileCache.get(userId, () -> {
+            User user = userRepository.findWithSettingsById(userId).orElseThrow(
+                    () -> new UserNotFoundException("user with id " + userId + " not found"));
+
+            return UserProfile.builder()
+                    .info(toUserInfo(user))
+                    .visibility(Visibility.of(user.getUserSettings()))
+                    .build();
+        });
+    }
+
+    private UserDto toUserInfo(User user) {
+        return UserDto.builder()
+                .name(user.getName())
+                .surname(user.getSurname())
+                .nickname(user.getNickname())
+                .email(user.getEmail())
+                .phone(user.getPhone())
+                .address(user.getAddress())
+                .registeredAt(user.getRegisteredAt())
+                .about(user.getAbout())
+                .avatarImageId(user.getAvatarImageId())
+                .build();
     }
 
-    public int getAnnouncementsCount(String userId) {
-        String url = "/api/v1/announcement/get-announcements-count?userId=" + userId;
-        return restTemplate.getForObject(url, Integer.class, userId);
+    private UserDto.UserDtoBuilder toVisibleInfo(UserDto info, Visibility visibility) {
+        return UserDto.builder()
+                .name(visibility.isVisible(Visibility.NAME) ? info.getName() : null)
+                .surname(visibility.isVisible(Visibility.SURNAME) ? info.getSurname() : null)
+                .nickname(info.getNickname())
+                .email(visibility.isVisible(Visibility.EMAIL) ? info.getEmail() : null)
+                .phone(visibility.isVisible(Visibility.PHONE) ? info.getPhone() : null)
+                .address(visibility.isVisible(Visibility.ADDRESS) ? info.getAddress() : null)
+                .registeredAt(info.getRegisteredAt())
+                .about(info.getAbout())
+                .avatarImageId(visibility.isVisible(Visibility.AVATAR) ? info.getAvatarImageId() : null);
     }
 }
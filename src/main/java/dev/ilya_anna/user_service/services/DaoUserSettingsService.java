@@ -1,8 +1,10 @@
 package dev.ilya_anna.user_service.services;
 
+import dev.ilya_anna.user_service.caches.UserProfileCache;
 import dev.ilya_anna.user_service.dto.UserSettingsDto;
 import dev.ilya_anna.user_service.entities.User;
 import dev.ilya_anna.user_service.entities.UserSettings;
+import dev.ilya_anna.user_service.entities.Visibility;
 import dev.ilya_anna.user_service.exceptions.UserNotFoundException;
 import dev.ilya_anna.user_service.repositories.UserRepository;
 import dev.ilya_anna.user_service.repositories.UserSettingsRepository;
@@ -21,6 +23,9 @@ public class DaoUserSettingsService implements UserSettingsService{
     @Autowired
     private UuidService uuidService;
 
+    @Autowired
+    private UserProfileCache userProfileCache;
+
     @Transactional
     public UserSettingsDto updateUserSettings(String userId, UserSettingsDto userSettingsDto){
         User user = userRepository.findById(userId).orElseThrow(
@@ -30,46 +35,26 @@ public class DaoUserSettingsService implements UserSettingsService{
             userSettings = createUserSettings(userId);
         }
 
-        userSettings.setNameVisibility(userSettingsDto.isNameVisibility());
-        userSettings.setSurnameVisibility(userSettingsDto.isSurnameVisibility());
-        userSettings.setEmailVisibility(userSettingsDto.isEmailVisibility());
-        userSettings.setPhoneVisibility(userSettingsDto.isPhoneVisibility());
-        userSettings.setAddressVisibility(userSettingsDto.isAddressVisibility());
-        userSettings.setAvatarVisibility(userSettingsDto.isAvatarVisibility());
+        userSettings.setVisibility(userSettingsDto.toVisibility());
         userSettingsRepository.save(userSettings);
+        userProfileCache.evict(userId);
 
         return userSettingsDto;
     }
 
     public UserSettingsDto getUserSettings(String userId){
-        User user = userRepository.findById(userId).orElseThrow(
+        User user = userRepository.findWithSettingsById(userId).orElseThrow(
                 () -> new UserNotFoundException("user with id " + userId + " not found"));
-        UserSettings userSettings = user.getUserSettings();
-        if (userSettings == null){
-            userSettings = createUserSettings(userId);
-        }
 
-        return UserSettingsDto.builder()
-                .nameVisibility(userSettings.isNameVisibility())
-                .surnameVisibility(userSettings.isSurnameVisibility())
-                .emailVisibility(userSettings.isEmailVisibility())
-                .phoneVisibility(userSettings.isPhoneVisibility())
-                .addressVisibility(userSettings.isAddressVisibility())
-                .avatarVisibility(userSettings.isAvatarVisibility())
-                .build();
-    };
+        return UserSettingsDto.fromVisibility(Visibility.of(user.getUserSettings()));
+    }
 
     @Transactional
     private UserSettings createUserSettings(String userId){
         User user = userRepository.getReferenceById(userId);
         UserSettings userSettings = UserSettings.builder()
                 .id(uuidService.generate())
-                .nameVisibility(true)
-                .surnameVisibility(true)
-                .emailVisibility(true)
-                .phoneVisibility(true)
-                .addressVisibility(true)
-                .avatarVisibility(true)
+                .visibility(Visibility.ALL_VISIBLE)
                 .user(user)
                 .build();
         userSettingsRepository.save(userSettings);
@@ -3,48 +3,139 @@ package dev.ilya_anna.user_service.services;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.auth0.jwt.interfaces.JWTVerifier;
 import dev.ilya_anna.user_service.entities.User;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 
+@Slf4j
 @Service
 public class DefaultJwtService implements JwtService{
 
+    private static final String ACCESS_SECRET_PROPERTY = "app.jwt.access.secret";
+
     @Value("${app.jwt.issuer}")
     private String issuer;
 
     @Value("${app.jwt.subject}")
     private String subject;
 
-    @Value("${app.jwt.access.secret}")
+    @Value("${" + ACCESS_SECRET_PROPERTY + "}")
     private String accessSecret;
 
+    @Value("${app.jwt.access.previous-secrets:}")
+    private String[] previousAccessSecrets;
+
     @Value("${app.jwt.access.duration}")
     private Long accessDuration;
 
+    @Autowired
+    private Environment environment;
+
+    private final AtomicReference<AccessKeys> accessKeys = new AtomicReference<>();
+
+    @PostConstruct
+    public void init() {
+        Instant validUntil = Instant.now().plusSeconds(accessDuration);
+        List<VerificationKey> previousKeys = Arrays.stream(previousAccessSecrets)
+                .map(String::trim)
+                .filter(secret -> !secret.isEmpty() && !secret.equals(accessSecret))
+                .map(secret -> new VerificationKey(secret, buildVerifier(secret), validUntil))
+                .toList();
+        accessKeys.set(new AccessKeys(accessSecret, Algorithm.HMAC256(accessSecret),
+                buildVerifier(accessSecret), previousKeys));
+    }
+
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().contains(ACCESS_SECRET_PROPERTY)) {
+            rotateAccessSecret(environment.getProperty(ACCESS_SECRET_PROPERTY));
+        }
+    }
+
+    public void rotateAccessSecret(String newSecret) {
+        if (newSecret == null || newSecret.isBlank()) {
+            log.warn("Ignoring rotation to an empty access secret");
+            return;
+        }
+        Instant now = Instant.now();
+        Instant validUntil = now.plusSeconds(accessDuration);
+        accessKeys.updateAndGet(current -> {
+            if (current.secret().equals(newSecret)) {
+                return current;
+            }
+            List<VerificationKey> previousKeys = new ArrayList<>();
+            previousKeys.add(new VerificationKey(current.secret(), current.verifier(), validUntil));
+            current.previousKeys().stream()
+                    .filter(key -> key.validUntil().isAfter(now) && !key.secret().equals(newSecret))
+                    .forEach(previousKeys::add);
+            return new AccessKeys(newSecret, Algorithm.HMAC256(newSecret),
+                    buildVerifier(newSecret), List.copyOf(previousKeys));
+        });
+        log.info("Access secret rotated, previous secret stays valid until {}", validUntil);
+    }
+
     @Override
     public DecodedJWT verifyAccessToken(String token) throws JWTVerificationException {
-        JWTVerifier verifier = JWT.require(Algorithm.HMAC256(accessSecret))
-                .withSubject(subject)
-                .withIssuer(issuer)
-                .withClaimPresence("userId")
-                .build();
-
-        return verifier.verify(token);
+        AccessKeys keys = accessKeys.get();
+        try {
+            return keys.verifier().verify(token);
+        } catch (SignatureVerificationException e) {
+            Instant now = Instant.now();
+            for (VerificationKey key : keys.previousKeys()) {
+                if (key.validUntil().isBefore(now)) {
+                    continue;
+                }
+                try {
+                    return key.verifier().verify(token);
+                } catch (SignatureVerificationException ignored) {
+                    // try the next key of the overlap window
+                }
+            }
+            throw e;
+        }
     }
 
     @Override
     public String generateAccess(User user) {
+        ZonedDateTime now = ZonedDateTime.now();
         return JWT.create()
                 .withIssuer(issuer)
                 .withSubject(subject)
-                .withExpiresAt(ZonedDateTime.now().plusSeconds(accessDuration).toInstant())
+                .withIssuedAt(now.toInstant())
+                .withExpiresAt(now.plusSeconds(accessDuration).toInstant())
                 .withClaim("userId", user.getId())
-                .sign(Algorithm.HMAC256(accessSecret));
+                .sign(accessKeys.get().algorithm());
+    }
+
+    private JWTVerifier buildVerifier(String secret) {
+        return JWT.require(Algorithm.HMAC256(secret))
+                .withSubject(subject)
+                .withIssuer(issuer)
+                .withClaimPresence("userId")
+                .build();
+    }
+
+    private record AccessKeys(String secret, Algorithm algorithm, JWTVerifier verifier,
+                              List<VerificationKey> previousKeys) {
+    }
+
+    private record VerificationKey(String secret, JWTVerifier verifier, Instant validUntil) {
     }
 }
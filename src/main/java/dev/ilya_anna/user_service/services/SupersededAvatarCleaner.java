@@ -0,0 +1,130 @@
+package dev.ilya_anna.user_service.services;
+
+import dev.ilya_anna.user_service.caches.AvatarBytesCache;
+import dev.ilya_anna.user_service.caches.CacheInvalidationPublisher;
+import dev.ilya_anna.user_service.caches.PresignedUrlCache;
+import dev.ilya_anna.user_service.entities.AvatarMetadata;
+import dev.ilya_anna.user_service.repositories.AvatarMetadataRepository;
+import io.minio.MinioClient;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Slf4j
+@Component
+public class SupersededAvatarCleaner {
+    @Value("${app.avatar.cleanup.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.avatar.cleanup.grace-period:3600}")
+    private long gracePeriod;
+
+    @Value("${app.avatar.cleanup.max-batches:20}")
+    private int maxBatches;
+
+    @Autowired
+    private AvatarMetadataRepository avatarMetadataRepository;
+
+    @Autowired
+    private MinioClient minioClient;
+
+    @Autowired
+    private AvatarBytesCache avatarBytesCache;
+
+    @Autowired
+    private PresignedUrlCache presignedUrlCache;
+
+    @Autowired
+    private CacheInvalidationPublisher cacheInvalidationPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Scheduled(fixedDelayString = "${app.avatar.cleanup.interval:60000}",
+            initialDelayString = "${app.avatar.cleanup.interval:60000}")
+    public void removeSupersededAvatars() {
+        ZonedDateTime supersededBefore = ZonedDateTime.now().minusSeconds(gracePeriod);
+        for (int i = 0; i < maxBatches; i++) {
+            Integer removed = transactionTemplate.execute(status -> removeNextBatch(supersededBefore));
+            if (removed == null || removed < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private int removeNextBatch(ZonedDateTime supersededBefore) {
+        List<AvatarMetadata> superseded = avatarMetadataRepository.lockSupersededBatch(supersededBefore, batchSize);
+        if (superseded.isEmpty()) {
+            return 0;
+        }
+
+        List<AvatarMetadata> removable = new ArrayList<>(superseded);
+        removable.addAll(avatarMetadataRepository.findAllByOriginalIdIn(
+                superseded.stream().map(AvatarMetadata::getId).toList()));
+
+        Set<String> failedPaths = new HashSet<>();
+        try {
+            Iterable<Result<DeleteError>> results = minioClient.removeObjects(
+                    RemoveObjectsArgs.builder()
+                            .bucket(DaoAvatarService.BUCKET_NAME)
+                            .objects(removable.stream()
+                                    .map(avatarMetadata -> new DeleteObject(avatarMetadata.getAvatarPath()))
+                                    .toList())
+                            .build());
+            for (Result<DeleteError> result : results) {
+                DeleteError error = result.get();
+                log.warn("Failed to delete superseded avatar {}: {}", error.objectName(), error.message());
+                failedPaths.add(error.objectName());
+            }
+        }
+        catch (Exception e) {
+            log.error("Failed to delete a batch of {} superseded avatars", removable.size(), e);
+            return 0;
+        }
+
+        List<String> removedIds = removable.stream()
+                .filter(avatarMetadata -> !failedPaths.contains(avatarMetadata.getAvatarPath()))
+                .map(AvatarMetadata::getId)
+                .toList();
+        if (!removedIds.isEmpty()) {
+            avatarMetadataRepository.deleteAllByIdInBatch(removedIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictEverywhere(removedIds);
+                }
+            });
+        }
+        log.debug("Removed {} superseded avatars", removedIds.size());
+        return superseded.size();
+    }
+
+    private void evictEverywhere(List<String> avatarIds) {
+        for (String avatarId : avatarIds) {
+            avatarBytesCache.evict(avatarId);
+            presignedUrlCache.evict(avatarId);
+            try {
+                cacheInvalidationPublisher.publishEvict(AvatarBytesCache.CACHE_NAME, avatarId);
+                cacheInvalidationPublisher.publishEvict(PresignedUrlCache.CACHE_NAME, avatarId);
+            }
+            catch (RuntimeException e) {
+                log.warn("Failed to publish eviction of removed avatar {}", avatarId, e);
+            }
+        }
+    }
+}
@@ -5,14 +5,16 @@ import dev.ilya_anna.user_service.dto.UserDto;
 import dev.ilya_anna.user_service.events.UserCreatedEvent;
 import dev.ilya_anna.user_service.exceptions.UserNotFoundException;
 
+import java.util.List;
+
 public interface UserService {
     UserDto getUserAllInfo(String userId) throws UserNotFoundException;
 
     UserDto getUser(String userId) throws UserNotFoundException;
 
-    UserDto updateUser(String userId, UpdateUserDto updateUserDto) throws UserNotFoundException;
+    List<UserDto> getUsers(List<String> userIds);
 
-    void createUser(UserCreatedEvent userCreatedEvent);
+    UserDto updateUser(String userId, UpdateUserDto updateUserDto) throws UserNotFoundException;
 
-    int getAnnouncementsCount(String userId);
+    void createUsers(List<UserCreatedEvent> userCreatedEvents);
 }
@@ -0,0 +1,15 @@
+package dev.ilya_anna.user_service.validators;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+@Getter
+@AllArgsConstructor
+public enum AvatarImageType {
+    PNG("png", MediaType.IMAGE_PNG_VALUE),
+    JPEG("jpg", MediaType.IMAGE_JPEG_VALUE);
+
+    private final String extension;
+    private final String contentType;
+}
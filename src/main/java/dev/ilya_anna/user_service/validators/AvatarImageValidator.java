@@ -0,0 +1,255 @@
+package dev.ilya_anna.user_service.validators;
+
+import dev.ilya_anna.user_service.exceptions.AvatarTooLargeException;
+import dev.ilya_anna.user_service.exceptions.InvalidImageFormatException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+@Component
+public class AvatarImageValidator {
+    private static final String[] ALLOWED_EXTENSIONS = {"png", "jpeg", "jpg"};
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] JPEG_SIGNATURE = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+
+    @Value("${app.avatar.upload.max-size:5242880}")
+    private long maxSize;
+
+    @Value("${app.avatar.upload.max-pixels:25000000}")
+    private long maxPixels;
+
+    @Value("${app.avatar.upload.max-dimension:8192}")
+    private int maxDimension;
+
+    public void validateFilename(String filename) {
+        if (filename != null && filename.lastIndexOf(".") != -1) {
+            String extension = filename.substring(filename.lastIndexOf(".") + 1);
+            for (String allowed : ALLOWED_EXTENSIONS) {
+                if (allowed.equalsIgnoreCase(extension)) {
+                    return;
+                }
+            }
+        }
+        throw new InvalidImageFormatException("Only PNG and JPEG/JPG images are allowed");
+    }
+
+    public ValidatedImage validate(InputStream inputStream, long size) throws IOException {
+        if (size > maxSize) {
+            throw new AvatarTooLargeException("Avatar must not exceed " + maxSize + " bytes");
+        }
+
+        BufferedInputStream stream = new BufferedInputStream(inputStream, PNG_SIGNATURE.length);
+        stream.mark(PNG_SIGNATURE.length);
+        byte[] signature = stream.readNBytes(PNG_SIGNATURE.length);
+        stream.reset();
+
+        HeaderParser parser;
+        if (Arrays.equals(signature, PNG_SIGNATURE)) {
+            parser = new PngHeaderParser();
+        } else if (Arrays.equals(signature, 0, JPEG_SIGNATURE.length, JPEG_SIGNATURE, 0, JPEG_SIGNATURE.length)) {
+            parser = new JpegHeaderParser();
+        } else {
+            throw new InvalidImageFormatException("Only PNG and JPEG/JPG images are allowed");
+        }
+
+        return new ValidatedImage(new SizeLimitedInputStream(new HeaderCheckingInputStream(stream, parser), maxSize),
+                parser.getType());
+    }
+
+    private void checkDimensions(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new InvalidImageFormatException("Image has invalid dimensions");
+        }
+        if (width > maxDimension || height > maxDimension || (long) width * height > maxPixels) {
+            throw new AvatarTooLargeException("Image dimensions " + width + "x" + height + " exceed the limit");
+        }
+    }
+
+    private static boolean isStartOfFrame(int marker) {
+        return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    private static class HeaderCheckingInputStream extends FilterInputStream {
+        private final HeaderParser parser;
+
+        HeaderCheckingInputStream(InputStream in, HeaderParser parser) {
+            super(in);
+            this.parser = parser;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value == -1) {
+                parser.finish();
+            } else if (!parser.isComplete()) {
+                parser.accept(value);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read == -1) {
+                parser.finish();
+            }
+            for (int i = 0; i < read && !parser.isComplete(); i++) {
+                parser.accept(buffer[offset + i] & 0xFF);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (parser.isComplete()) {
+                return super.skip(n);
+            }
+            int read = read(new byte[(int) Math.min(n, 8192)]);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    private abstract class HeaderParser {
+        private boolean complete;
+
+        abstract AvatarImageType getType();
+
+        abstract void accept(int value);
+
+        boolean isComplete() {
+            return complete;
+        }
+
+        void complete(int width, int height) {
+            checkDimensions(width, height);
+            complete = true;
+        }
+
+        void finish() {
+            if (!complete) {
+                throw new InvalidImageFormatException("Image is truncated");
+            }
+        }
+    }
+
+    private class PngHeaderParser extends HeaderParser {
+        private static final byte[] IHDR = {'I', 'H', 'D', 'R'};
+
+        private final byte[] header = new byte[24];
+        private int position;
+
+        @Override
+        AvatarImageType getType() {
+            return AvatarImageType.PNG;
+        }
+
+        @Override
+        void accept(int value) {
+            header[position] = (byte) value;
+            if (position < 8 && header[position] != PNG_SIGNATURE[position]
+                    || position >= 12 && position < 16 && header[position] != IHDR[position - 12]) {
+                throw new InvalidImageFormatException("Only PNG and JPEG/JPG images are allowed");
+            }
+            if (++position == header.length) {
+                complete(readInt(16), readInt(20));
+            }
+        }
+
+        private int readInt(int offset) {
+            return (header[offset] & 0xFF) << 24 | (header[offset + 1] & 0xFF) << 16
+                    | (header[offset + 2] & 0xFF) << 8 | header[offset + 3] & 0xFF;
+        }
+    }
+
+    private class JpegHeaderParser extends HeaderParser {
+        private State state = State.START;
+        private int marker;
+        private int remaining;
+        private final int[] frame = new int[5];
+        private int frameBytes;
+
+        @Override
+        AvatarImageType getType() {
+            return AvatarImageType.JPEG;
+        }
+
+        @Override
+        void accept(int value) {
+            switch (state) {
+                case START -> state = expect(value, 0xFF, State.SOI);
+                case SOI -> state = expect(value, 0xD8, State.MARKER_PREFIX);
+                case MARKER_PREFIX -> state = expect(value, 0xFF, State.MARKER);
+                case MARKER -> readMarker(value);
+                case LENGTH_HIGH -> {
+                    remaining = value << 8;
+                    state = State.LENGTH_LOW;
+                }
+                case LENGTH_LOW -> readLength(value);
+                case SEGMENT -> {
+                    if (--remaining == 0) {
+                        state = State.MARKER_PREFIX;
+                    }
+                }
+                case FRAME -> {
+                    frame[frameBytes++] = value;
+                    if (frameBytes == frame.length) {
+                        complete(frame[3] << 8 | frame[4], frame[1] << 8 | frame[2]);
+                    }
+                }
+            }
+        }
+
+        private void readMarker(int value) {
+            if (value == 0xFF) {
+                return;
+            }
+            if (value == 0xD9 || value == 0xDA) {
+                throw new InvalidImageFormatException("JPEG has no frame header");
+            }
+            if (value == 0x01 || (value >= 0xD0 && value <= 0xD7)) {
+                state = State.MARKER_PREFIX;
+                return;
+            }
+            marker = value;
+            state = State.LENGTH_HIGH;
+        }
+
+        private void readLength(int value) {
+            int length = remaining | value;
+            if (length < 2) {
+                throw new InvalidImageFormatException("Malformed JPEG segment");
+            }
+            remaining = length - 2;
+            if (isStartOfFrame(marker)) {
+                if (remaining < frame.length) {
+                    throw new InvalidImageFormatException("Malformed JPEG segment");
+                }
+                state = State.FRAME;
+            } else {
+                state = remaining == 0 ? State.MARKER_PREFIX : State.SEGMENT;
+            }
+        }
+
+        private State expect(int value, int expected, State next) {
+            if (value != expected) {
+                throw new InvalidImageFormatException("Malformed JPEG segment");
+            }
+            return next;
+        }
+    }
+
+    private enum State {
+        START, SOI, MARKER_PREFIX, MARKER, LENGTH_HIGH, LENGTH_LOW, SEGMENT, FRAME
+    }
+}
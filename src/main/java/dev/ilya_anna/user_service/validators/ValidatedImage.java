@@ -0,0 +1,4 @@
+package dev.ilya_anna.user_service.validators;
+
+public record ValidatedImage(SizeLimitedInputStream content, AvatarImageType type) {
+}
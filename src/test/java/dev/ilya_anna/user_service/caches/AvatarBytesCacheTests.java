@@ -0,0 +1,139 @@
+package dev.ilya_anna.user_service.caches;
+
+import dev.ilya_anna.user_service.entities.AvatarMetadata;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AvatarBytesCacheTests {
+    @TempDir
+    Path diskDirectory;
+
+    private final List<AvatarBytesCache> caches = new ArrayList<>();
+
+    @AfterEach
+    void afterEach() {
+        caches.forEach(AvatarBytesCache::shutdown);
+    }
+
+    @Test
+    void get_ReturnsMemoryHit_WhenAvatarWasPut() throws IOException {
+        AvatarBytesCache cache = createCache(1024 * 1024, "");
+        byte[] content = content(100, 1);
+
+        cache.put(metadata("avatar"), content);
+        CachedAvatar cachedAvatar = cache.get("avatar");
+
+        assertNotNull(cachedAvatar);
+        assertEquals(AvatarBytesCache.MEMORY_TIER, cachedAvatar.tier());
+        assertFalse(cachedAvatar.content().isDirect());
+        assertArrayEquals(content, read(cachedAvatar, 0, content.length));
+        assertArrayEquals(new byte[]{content[10], content[11]}, read(cachedAvatar, 10, 2));
+    }
+
+    @Test
+    void get_ReturnsDiskHit_WhenCacheIsRecreatedOverSameDirectory() throws IOException {
+        AvatarBytesCache cache = createCache(1024 * 1024, diskDirectory.toString());
+        byte[] content = content(100, 2);
+        cache.put(metadata("avatar"), content);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> countCacheFiles() == 1);
+
+        AvatarBytesCache restarted = createCache(1024 * 1024, diskDirectory.toString());
+        CachedAvatar cachedAvatar = restarted.get("avatar");
+
+        assertNotNull(cachedAvatar);
+        assertEquals(AvatarBytesCache.DISK_TIER, cachedAvatar.tier());
+        assertEquals("users/1/avatar/avatar.jpg", cachedAvatar.metadata().getAvatarPath());
+        assertEquals("image/jpeg", cachedAvatar.metadata().getContentType());
+        assertEquals("etag-avatar", cachedAvatar.metadata().getEtag());
+        assertEquals(content.length, cachedAvatar.metadata().getContentLength());
+        assertArrayEquals(content, read(cachedAvatar, 0, content.length));
+        assertEquals(AvatarBytesCache.MEMORY_TIER, restarted.get("avatar").tier());
+    }
+
+    @Test
+    void evict_RemovesAvatarFromMemoryAndDisk() throws IOException {
+        AvatarBytesCache cache = createCache(1024 * 1024, diskDirectory.toString());
+        cache.put(metadata("avatar"), content(100, 3));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> countCacheFiles() == 1);
+
+        cache.evict("avatar");
+
+        assertNull(cache.get("avatar"));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> countCacheFiles() == 0);
+    }
+
+    @Test
+    void put_EvictsLeastValuableAvatars_WhenMemoryBudgetIsExceeded() throws IOException {
+        AvatarBytesCache cache = createCache(3 * 1024, "");
+        for (int i = 0; i < 10; i++) {
+            cache.put(metadata("avatar" + i), content(1000, i));
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> {
+            int cached = 0;
+            for (int i = 0; i < 10; i++) {
+                if (cache.get("avatar" + i) != null) {
+                    cached++;
+                }
+            }
+            return cached <= 2;
+        });
+    }
+
+    private AvatarBytesCache createCache(long memoryMaxSize, String directory) throws IOException {
+        AvatarBytesCache cache = new AvatarBytesCache();
+        ReflectionTestUtils.setField(cache, "memoryMaxSize", memoryMaxSize);
+        ReflectionTestUtils.setField(cache, "maxObjectSize", 2 * 1024 * 1024L);
+        ReflectionTestUtils.setField(cache, "diskDirectory", directory);
+        ReflectionTestUtils.setField(cache, "diskMaxSize", 1024 * 1024L);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        cache.init();
+        caches.add(cache);
+        return cache;
+    }
+
+    private long countCacheFiles() throws IOException {
+        try (Stream<Path> files = Files.list(diskDirectory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".avatar")).count();
+        }
+    }
+
+    private static AvatarMetadata metadata(String avatarId) {
+        return AvatarMetadata.builder()
+                .id(avatarId)
+                .avatarPath("users/1/avatar/" + avatarId + ".jpg")
+                .contentType("image/jpeg")
+                .contentLength(100L)
+                .etag("etag-" + avatarId)
+                .build();
+    }
+
+    private static byte[] content(int length, int seed) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) (i * 31 + seed);
+        }
+        return content;
+    }
+
+    private static byte[] read(CachedAvatar cachedAvatar, long offset, long length) throws IOException {
+        try (InputStream stream = cachedAvatar.openStream(offset, length)) {
+            return stream.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package dev.ilya_anna.user_service.caches;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PresignedUrlCacheTests {
+
+    @Test
+    void init_Fails_WhenRefreshBeforeIsNotLessThanTtl() {
+        PresignedUrlCache cache = createCache(60, 60);
+
+        assertThrows(IllegalStateException.class, cache::init);
+    }
+
+    @Test
+    void get_ReturnsCachedUrl_UntilEvicted() {
+        PresignedUrlCache cache = createCache(300, 60);
+        cache.init();
+        AtomicInteger presigned = new AtomicInteger();
+
+        String first = cache.get("avatar", () -> "url-" + presigned.incrementAndGet());
+        String second = cache.get("avatar", () -> "url-" + presigned.incrementAndGet());
+        cache.evict("avatar");
+        String third = cache.get("avatar", () -> "url-" + presigned.incrementAndGet());
+
+        assertEquals("url-1", first);
+        assertEquals("url-1", second);
+        assertEquals("url-2", third);
+    }
+
+    private static PresignedUrlCache createCache(long urlTtl, long refreshBefore) {
+        PresignedUrlCache cache = new PresignedUrlCache();
+        ReflectionTestUtils.setField(cache, "urlTtl", urlTtl);
+        ReflectionTestUtils.setField(cache, "refreshBefore", refreshBefore);
+        ReflectionTestUtils.setField(cache, "maxSize", 100L);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        return cache;
+    }
+}
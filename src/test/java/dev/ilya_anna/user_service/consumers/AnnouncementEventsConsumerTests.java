@@ -0,0 +1,195 @@
+package dev.ilya_anna.user_service.consumers;
+
+import com.redis.testcontainers.RedisContainer;
+import dev.ilya_anna.user_service.events.AnnouncementCreatedEvent;
+import dev.ilya_anna.user_service.events.AnnouncementDeletedEvent;
+import dev.ilya_anna.user_service.services.AnnouncementsCountService;
+import dev.ilya_anna.user_service.services.UuidService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.client.RestTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.kafka.KafkaContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Testcontainers
+@DirtiesContext
+@Slf4j
+@SpringBootTest(
+        properties = {
+                "app.jwt.issuer=user_service",
+                "app.jwt.subject=user_details",
+                "app.jwt.access.duration=1000",
+                "app.jwt.refresh.duration=2000",
+                "app.jwt.access.secret=access_secret",
+                "app.jwt.refresh.secret=refresh_secret",
+                "eureka.client.enabled=false",
+                "spring.kafka.consumer.auto-offset-reset=earliest",
+                "app.uuid.seed=user_service",
+                "app.minio.endpoint=http://localhost:9000",
+                "app.minio.accessKey=minioadmin",
+                "app.minio.secretKey=minioadmin",
+                "app.gateway.uri=http://localhost:8080"
+        },
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class AnnouncementEventsConsumerTests {
+    @Container
+    @ServiceConnection
+    static KafkaContainer kafka = new KafkaContainer("apache/kafka-native:3.8.0");
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName("user_service")
+            .withUsername("postgres")
+            .withPassword("postgres")
+            .withInitScript("init.sql");
+
+    @BeforeAll
+    static void beforeAll() {
+        postgres.start();
+        kafka.start();
+    }
+
+    @Container
+    @ServiceConnection
+    static RedisContainer redis = new RedisContainer(DockerImageName.parse("redis:latest"));
+
+
+    @AfterAll
+    static void afterAll() {
+        postgres.stop();
+        kafka.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.redis.database", () -> "0");
+        registry.add("spring.data.redis.host", redis::getHost);
+        registry.add("spring.data.redis.port", redis::getFirstMappedPort);
+        registry.add("spring.data.redis.password", () -> "password");
+    }
+
+    @Autowired
+    private AnnouncementsCountService announcementsCountService;
+
+    @Autowired
+    private UuidService uuidService;
+
+    @Autowired
+    private KafkaTemplate<String, Map<String, Object>> kafkaTemplate;
+
+    @MockitoBean
+    private RestTemplate restTemplate;
+
+    @Test
+    void consumeAnnouncementEvents_RefreshesCachedCount_WhenEventsReceived() {
+        await().atMost(300, TimeUnit.SECONDS).until(() -> kafka.isRunning());
+        String userId = uuidService.generate();
+
+        when(restTemplate.getForObject(
+                ArgumentMatchers.anyString(),
+                ArgumentMatchers.eq(Integer.class),
+                Optional.ofNullable(ArgumentMatchers.any())))
+                .thenReturn(5, 6, 5);
+
+        assertThat(announcementsCountService.getAnnouncementsCount(userId)).isEqualTo(5);
+
+        AnnouncementCreatedEvent announcementCreatedEvent = AnnouncementCreatedEvent.builder()
+                .id(uuidService.generate())
+                .userId(userId)
+                .announcementId("announcementId")
+                .time(ZonedDateTime.now())
+                .build();
+        try{
+            kafkaTemplate.send(AnnouncementCreatedEvent.TOPIC,
+                    announcementCreatedEvent.getId(),
+                    AnnouncementCreatedEvent.toMap(announcementCreatedEvent)).get();
+        } catch (ExecutionException | InterruptedException e){
+            log.error("An exception during sending announcement created event to kafka ", e);
+        }
+
+        await().atMost(300, TimeUnit.SECONDS).untilAsserted(() ->
+                assertThat(announcementsCountService.getAnnouncementsCount(userId)).isEqualTo(6));
+
+        AnnouncementDeletedEvent announcementDeletedEvent = AnnouncementDeletedEvent.builder()
+                .id(uuidService.generate())
+                .userId(userId)
+                .announcementId("announcementId")
+                .time(ZonedDateTime.now())
+                .build();
+        try{
+            kafkaTemplate.send(AnnouncementDeletedEvent.TOPIC,
+                    announcementDeletedEvent.getId(),
+                    AnnouncementDeletedEvent.toMap(announcementDeletedEvent)).get();
+        } catch (ExecutionException | InterruptedException e){
+            log.error("An exception during sending announcement deleted event to kafka ", e);
+        }
+
+        await().atMost(300, TimeUnit.SECONDS).untilAsserted(() ->
+                assertThat(announcementsCountService.getAnnouncementsCount(userId)).isEqualTo(5));
+    }
+
+    @Test
+    void consumeAnnouncementCreatedEvent_SkipsFetch_WhenCountIsNotCached() {
+        await().atMost(300, TimeUnit.SECONDS).until(() -> kafka.isRunning());
+        String cachedUserId = uuidService.generate();
+        String uncachedUserId = uuidService.generate();
+
+        when(restTemplate.getForObject(
+                ArgumentMatchers.anyString(),
+                ArgumentMatchers.eq(Integer.class),
+                Optional.ofNullable(ArgumentMatchers.any())))
+                .thenReturn(5, 6);
+
+        assertThat(announcementsCountService.getAnnouncementsCount(cachedUserId)).isEqualTo(5);
+
+        for (String userId : new String[]{uncachedUserId, cachedUserId}) {
+            AnnouncementCreatedEvent announcementCreatedEvent = AnnouncementCreatedEvent.builder()
+                    .id(uuidService.generate())
+                    .userId(userId)
+                    .announcementId("announcementId")
+                    .time(ZonedDateTime.now())
+                    .build();
+            try{
+                kafkaTemplate.send(AnnouncementCreatedEvent.TOPIC,
+                        announcementCreatedEvent.getId(),
+                        AnnouncementCreatedEvent.toMap(announcementCreatedEvent)).get();
+            } catch (ExecutionException | InterruptedException e){
+                log.error("An exception during sending announcement created event to kafka ", e);
+            }
+        }
+
+        await().atMost(300, TimeUnit.SECONDS).untilAsserted(() ->
+                assertThat(announcementsCountService.getAnnouncementsCount(cachedUserId)).isEqualTo(6));
+        verify(restTemplate, never()).getForObject(
+                ArgumentMatchers.contains(uncachedUserId),
+                ArgumentMatchers.eq(Integer.class),
+                Optional.ofNullable(ArgumentMatchers.any()));
+    }
+}
@@ -0,0 +1,109 @@
+package dev.ilya_anna.user_service.consumers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeyOrderedBatchProcessorTests {
+    private final KeyOrderedBatchProcessor processor = new KeyOrderedBatchProcessor();
+
+    @AfterEach
+    void afterEach() {
+        processor.shutdown();
+    }
+
+    @Test
+    void process_KeepsRecordsOfOneKeyInOrder_WhenSplitIntoLanes() {
+        List<Record> records = IntStream.range(0, 1000)
+                .mapToObj(i -> new Record("user-" + i % 37, i))
+                .toList();
+        Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+
+        processor.process(records, Record::key, 8, lane -> lane.forEach(record ->
+                processed.computeIfAbsent(record.key(), key -> Collections.synchronizedList(new ArrayList<>()))
+                        .add(record.sequence())));
+
+        Map<String, List<Integer>> expected = records.stream().collect(Collectors.groupingBy(Record::key,
+                Collectors.mapping(Record::sequence, Collectors.toList())));
+        assertEquals(expected, processed);
+    }
+
+    @Test
+    void process_HandsEachKeyToASingleLane() {
+        List<Record> records = IntStream.range(0, 200)
+                .mapToObj(i -> new Record("user-" + i % 10, i))
+                .toList();
+        List<List<Record>> lanes = new CopyOnWriteArrayList<>();
+
+        processor.process(records, Record::key, 4, lanes::add);
+
+        assertEquals(records.size(), lanes.stream().mapToInt(List::size).sum());
+        Map<String, Long> lanesPerKey = records.stream().collect(Collectors.groupingBy(Record::key,
+                Collectors.counting()));
+        lanesPerKey.replaceAll((key, count) -> lanes.stream()
+                .filter(lane -> lane.stream().anyMatch(record -> record.key().equals(key)))
+                .count());
+        assertTrue(lanesPerKey.values().stream().allMatch(count -> count == 1));
+        assertTrue(lanes.size() > 1);
+    }
+
+    @Test
+    void process_FailsAtEarliestFailedLane_WhenSeveralLanesFail() {
+        List<Record> records = IntStream.range(0, 100)
+                .mapToObj(i -> new Record("user-" + i, i))
+                .toList();
+        int concurrency = 4;
+        int firstFailing = 42;
+        int secondFailing = IntStream.range(firstFailing + 1, records.size())
+                .filter(i -> lane(records.get(i), concurrency) != lane(records.get(firstFailing), concurrency))
+                .findFirst()
+                .orElseThrow();
+        int expectedIndex = IntStream.range(0, records.size())
+                .filter(i -> lane(records.get(i), concurrency) == lane(records.get(firstFailing), concurrency)
+                        || lane(records.get(i), concurrency) == lane(records.get(secondFailing), concurrency))
+                .findFirst()
+                .orElseThrow();
+        IllegalStateException failure = new IllegalStateException("boom");
+
+        BatchListenerFailedException e = assertThrows(BatchListenerFailedException.class,
+                () -> processor.process(records, Record::key, concurrency, lane -> {
+                    if (lane.stream().anyMatch(record -> record.sequence() == firstFailing
+                            || record.sequence() == secondFailing)) {
+                        throw failure;
+                    }
+                }));
+
+        assertEquals(expectedIndex, e.getIndex());
+        assertSame(failure, e.getCause());
+    }
+
+    @Test
+    void process_HandsWholeBatchToHandler_WhenConcurrencyIsOne() {
+        List<Record> records = IntStream.range(0, 10)
+                .mapToObj(i -> new Record("user-" + i, i))
+                .toList();
+        List<List<Record>> calls = new ArrayList<>();
+
+        processor.process(records, Record::key, 1, calls::add);
+
+        assertEquals(List.of(records), calls);
+    }
+
+    private static int lane(Record record, int concurrency) {
+        return Math.floorMod(record.key().hashCode(), concurrency);
+    }
+
+    private record Record(String key, int sequence) {
+    }
+}
@@ -1,7 +1,6 @@
 package dev.ilya_anna.user_service.consumers;
 
 import com.redis.testcontainers.RedisContainer;
-import dev.ilya_anna.user_service.entities.SignOutMark;
 import dev.ilya_anna.user_service.events.UserSignOutEvent;
 import dev.ilya_anna.user_service.repositories.SignOutMarkRepository;
 import io.restassured.RestAssured;
@@ -14,6 +13,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.DynamicPropertyRegistry;
@@ -26,7 +26,6 @@ import org.testcontainers.utility.DockerImageName;
 
 import java.time.ZonedDateTime;
 import java.util.Map;
-import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
@@ -92,7 +91,7 @@ public class UserSignOutEventsConsumerTests {
     }
 
     @Autowired
-    private SignOutMarkRepository signOutMarkRepository;
+    private StringRedisTemplate redisTemplate;
 
     @Autowired
     private KafkaTemplate<String, Map<String, Object>> kafkaTemplate;
@@ -103,7 +102,7 @@ public class UserSignOutEventsConsumerTests {
     @BeforeEach
     void beforeEach() {
         RestAssured.baseURI = "http://localhost:" + port + "/api/v1/user";
-        signOutMarkRepository.deleteAll();
+        redisTemplate.delete(SignOutMarkRepository.KEY_PREFIX + "userId");
     }
 
     @Test
@@ -123,11 +122,8 @@ public class UserSignOutEventsConsumerTests {
         }
 
         await().atMost(300, TimeUnit.SECONDS).untilAsserted(() -> {
-            Optional<SignOutMark> signOutMarkOptional = signOutMarkRepository.findById("123");
-            assertThat(signOutMarkOptional).isPresent();
-
-            SignOutMark signOutMark = signOutMarkOptional.get();
-            assertThat(signOutMark.getUserId()).isEqualTo("userId");
+            String signOutTime = redisTemplate.opsForValue().get(SignOutMarkRepository.KEY_PREFIX + "userId");
+            assertThat(signOutTime).isEqualTo(String.valueOf(userSignOutEvent.getTime().toEpochSecond()));
         });
     }
 }
@@ -1,17 +1,23 @@
 package dev.ilya_anna.user_service.controllers;
 
 import com.redis.testcontainers.RedisContainer;
+import dev.ilya_anna.user_service.caches.CacheInvalidationPublisher;
+import dev.ilya_anna.user_service.caches.UserProfileCache;
+import dev.ilya_anna.user_service.dto.AvatarUploadDto;
 import dev.ilya_anna.user_service.dto.UserDto;
 import dev.ilya_anna.user_service.entities.AvatarMetadata;
+import dev.ilya_anna.user_service.entities.AvatarUploadStatus;
 import dev.ilya_anna.user_service.entities.User;
 import dev.ilya_anna.user_service.repositories.AvatarMetadataRepository;
 import dev.ilya_anna.user_service.repositories.UserRepository;
 import dev.ilya_anna.user_service.services.JwtService;
+import dev.ilya_anna.user_service.services.UserService;
 import dev.ilya_anna.user_service.services.UuidService;
 import io.minio.*;
 import io.minio.errors.*;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -20,8 +26,15 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatchers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.DynamicPropertyRegistry;
@@ -39,17 +52,27 @@ import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.when;
+import static org.awaitility.Awaitility.await;
 
 @Testcontainers
 @DirtiesContext
@@ -71,6 +94,9 @@ import static org.mockito.Mockito.when;
         },
         webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 public class AvatarControllerTests {
+    private static final String INVALIDATION_CHANNEL = "user-service:cache-invalidation";
+    private static final String USER_PROFILES_KEY_PREFIX = "user-service:v2:" + UserProfileCache.CACHE_NAME + "::";
+
     @Container
     @ServiceConnection
     static KafkaContainer kafka = new KafkaContainer("apache/kafka-native:3.8.0");
@@ -135,6 +161,35 @@ public class AvatarControllerTests {
         registry.add("app.minio.secretKey", () -> "minioadmin");
     }
 
+    @Getter
+    static class TestInvalidationListener implements MessageListener {
+        private final List<String> invalidationMessages = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onMessage(Message message, byte[] pattern) {
+            invalidationMessages.add(new String(message.getBody(), StandardCharsets.UTF_8));
+        }
+
+        public void clear() {
+            invalidationMessages.clear();
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        public TestInvalidationListener testInvalidationListener(
+                RedisMessageListenerContainer cacheInvalidationListenerContainer) {
+            TestInvalidationListener testInvalidationListener = new TestInvalidationListener();
+            cacheInvalidationListenerContainer.addMessageListener(testInvalidationListener,
+                    new ChannelTopic(INVALIDATION_CHANNEL));
+            return testInvalidationListener;
+        }
+    }
+
+    @Autowired
+    private TestInvalidationListener testInvalidationListener;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -150,6 +205,12 @@ public class AvatarControllerTests {
     @Autowired
     private MinioClient minioClient;
 
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
     @MockitoBean
     private RestTemplate restTemplate;
 
@@ -161,6 +222,7 @@ public class AvatarControllerTests {
         RestAssured.baseURI = "http://localhost:" + port + "/api/v1/user-avatars";
         userRepository.deleteAll();
         avatarMetadataRepository.deleteAll();
+        testInvalidationListener.clear();
     }
 
     @Test
@@ -203,6 +265,247 @@ public class AvatarControllerTests {
 
     }
 
+    @Test
+    void getUserAvatar_ReturnsNotModified_WhenEtagMatches() {
+        String avatarId = saveTestAvatar();
+
+        String etag = given()
+                .when()
+                .get("/{avatarId}", avatarId)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .header("Cache-Control", containsString("immutable"))
+                .extract().header("ETag");
+        assertNotNull(etag);
+
+        given()
+                .header("If-None-Match", etag)
+                .when()
+                .get("/{avatarId}", avatarId)
+                .then()
+                .log().headers()
+                .statusCode(HttpStatus.NOT_MODIFIED.value())
+                .header("ETag", etag);
+    }
+
+    @Test
+    void getUserAvatar_ReturnsPartialContent_WhenRangeRequested() {
+        String avatarId = saveTestAvatar();
+
+        byte[] result = given()
+                .header("Range", "bytes=0-99")
+                .when()
+                .get("/{avatarId}", avatarId)
+                .then()
+                .log().headers()
+                .statusCode(HttpStatus.PARTIAL_CONTENT.value())
+                .header("Content-Range", startsWith("bytes 0-99/"))
+                .extract().body().asByteArray();
+
+        assertEquals(100, result.length);
+    }
+
+    @Test
+    void getUserAvatar_ReturnsResizedVariant_WhenSizeRequested() {
+        String userId = uuidService.generate();
+        User user = User.builder()
+                .id(userId)
+                .nickname("johndoe")
+                .registeredAt(ZonedDateTime.now())
+                .build();
+        userRepository.save(user);
+
+        String accessToken = jwtService.generateAccess(user);
+
+        when(restTemplate.getForObject(
+                ArgumentMatchers.anyString(),
+                ArgumentMatchers.eq(Integer.class),
+                Optional.ofNullable(ArgumentMatchers.any())))
+                .thenReturn(5);
+
+        byte[] imageBytes = new byte[0];
+        try {
+            imageBytes = Files.readAllBytes(Paths.get("src/test/resources/test-avatar.jpg"));
+        } catch (IOException e){
+            log.error("An exception during reading image from array of bytes ", e);
+        }
+
+        UserDto result = given()
+                .contentType(ContentType.MULTIPART)
+                .header("Authorization", "Bearer " + accessToken)
+                .multiPart("avatar", "test-avatar.jpg", imageBytes, "image/jpeg")
+                .when()
+                .post("/{userId}", userId)
+                .then()
+                .statusCode(HttpStatus.OK.value()).extract().as(UserDto.class);
+
+        await().atMost(30, TimeUnit.SECONDS).untilAsserted(() -> {
+            byte[] variant = given()
+                    .queryParam("size", 64)
+                    .when()
+                    .get("/{avatarId}", result.getAvatarImageId())
+                    .then()
+                    .statusCode(HttpStatus.OK.value())
+                    .header("Cache-Control", containsString("immutable"))
+                    .extract().body().asByteArray();
+
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(variant));
+            assertThat(image).isNotNull();
+            assertTrue(Math.max(image.getWidth(), image.getHeight()) <= 64);
+        });
+    }
+
+    @Test
+    void updateUserAvatar_EvictsCachedProfileOnEveryNode_WhenAvatarIsReplaced() throws IOException {
+        String userId = uuidService.generate();
+        User user = User.builder()
+                .id(userId)
+                .nickname("johndoe")
+                .registeredAt(ZonedDateTime.now())
+                .build();
+        userRepository.save(user);
+
+        when(restTemplate.getForObject(
+                ArgumentMatchers.anyString(),
+                ArgumentMatchers.eq(Integer.class),
+                Optional.ofNullable(ArgumentMatchers.any())))
+                .thenReturn(5);
+
+        assertNull(userService.getUserAllInfo(userId).getAvatarImageId());
+        assertTrue(redisTemplate.hasKey(USER_PROFILES_KEY_PREFIX + userId));
+
+        byte[] imageBytes = Files.readAllBytes(Paths.get("src/test/resources/test-avatar.jpg"));
+
+        UserDto result = given()
+                .contentType(ContentType.MULTIPART)
+                .header("Authorization", "Bearer " + jwtService.generateAccess(user))
+                .multiPart("avatar", "test-avatar.jpg", imageBytes, "image/jpeg")
+                .when()
+                .post("/{userId}", userId)
+                .then()
+                .statusCode(HttpStatus.OK.value()).extract().as(UserDto.class);
+
+        assertFalse(redisTemplate.hasKey(USER_PROFILES_KEY_PREFIX + userId));
+        await().atMost(30, TimeUnit.SECONDS).until(() -> testInvalidationListener.getInvalidationMessages()
+                .contains(UserProfileCache.CACHE_NAME + CacheInvalidationPublisher.SEPARATOR + userId));
+        assertEquals(result.getAvatarImageId(), userService.getUserAllInfo(userId).getAvatarImageId());
+    }
+
+    @Test
+    void updateUserAvatar_StoresIdenticalAvatarsOnce_WhenContentIsTheSame() throws Exception {
+        byte[] imageBytes = Files.readAllBytes(Paths.get("src/test/resources/test-avatar2.jpg"));
+        String expectedHash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(imageBytes));
+
+        when(restTemplate.getForObject(
+                ArgumentMatchers.anyString(),
+                ArgumentMatchers.eq(Integer.class),
+                Optional.ofNullable(ArgumentMatchers.any())))
+                .thenReturn(5);
+
+        for (int i = 0; i < 2; i++) {
+            String userId = uuidService.generate();
+            User user = User.builder()
+                    .id(userId)
+                    .nickname("johndoe")
+                    .registeredAt(ZonedDateTime.now())
+                    .build();
+            userRepository.save(user);
+
+            UserDto result = given()
+                    .contentType(ContentType.MULTIPART)
+                    .header("Authorization", "Bearer " + jwtService.generateAccess(user))
+                    .multiPart("avatar", "test-avatar.jpg", imageBytes, "image/jpeg")
+                    .when()
+                    .post("/{userId}", userId)
+                    .then()
+                    .statusCode(HttpStatus.OK.value()).extract().as(UserDto.class);
+
+            assertEquals(expectedHash, result.getAvatarImageId());
+        }
+
+        AvatarMetadata avatarMetadata = avatarMetadataRepository.findById(expectedHash).orElseThrow();
+        assertTrue(avatarMetadata.getRefCount() >= 2);
+
+        given()
+                .when()
+                .get("/{avatarId}", expectedHash)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .header("ETag", "\"" + expectedHash + "\"");
+    }
+
+    @Test
+    void uploadUserAvatar_CompletesUploadInBackground_WhenUserExists() {
+        String userId = uuidService.generate();
+        User user = User.builder()
+                .id(userId)
+                .nickname("johndoe")
+                .registeredAt(ZonedDateTime.now())
+                .build();
+        userRepository.save(user);
+
+        String accessToken = jwtService.generateAccess(user);
+
+        byte[] imageBytes = new byte[0];
+        try {
+            imageBytes = Files.readAllBytes(Paths.get("src/test/resources/test-avatar.jpg"));
+        } catch (IOException e){
+            log.error("An exception during reading image from array of bytes ", e);
+        }
+
+        AvatarUploadDto upload = given()
+                .contentType(ContentType.MULTIPART)
+                .header("Authorization", "Bearer " + accessToken)
+                .multiPart("avatar", "test-avatar.jpg", imageBytes, "image/jpeg")
+                .when()
+                .post("/{userId}/uploads", userId)
+                .then()
+                .statusCode(HttpStatus.ACCEPTED.value())
+                .header("Location", containsString(userId + "/uploads/"))
+                .extract().as(AvatarUploadDto.class);
+
+        assertNotNull(upload.getUploadId());
+
+        AvatarUploadDto completed = await().atMost(30, TimeUnit.SECONDS).until(() -> given()
+                .header("Authorization", "Bearer " + accessToken)
+                .when()
+                .get("/{userId}/uploads/{uploadId}", userId, upload.getUploadId())
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract().as(AvatarUploadDto.class),
+                status -> status.getStatus() == AvatarUploadStatus.COMPLETED);
+
+        assertEquals(completed.getAvatarId(), userRepository.findById(userId).orElseThrow().getAvatarImageId());
+        given()
+                .when()
+                .get("/{avatarId}", completed.getAvatarId())
+                .then()
+                .statusCode(HttpStatus.OK.value());
+    }
+
+    private String saveTestAvatar() {
+        String avatarId = uuidService.generate();
+        String avatarPath = "users/123/avatar/" + avatarId + ".jpg";
+
+        avatarMetadataRepository.save(AvatarMetadata.builder()
+                .id(avatarId)
+                .avatarPath(avatarPath)
+                .build());
+
+        try{
+            byte[] testImage = Files.readAllBytes(Paths.get("src/test/resources/test-avatar.jpg"));
+            minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket("avatars")
+                            .object(avatarPath)
+                            .stream(new ByteArrayInputStream(testImage), testImage.length, -1)
+                            .build());
+        } catch (Exception e){
+            log.error("An exception during saving image to minio ", e);
+        }
+        return avatarId;
+    }
+
     @Test
     void getUserAvatar_ReturnsNotFound_WhenAvatarDoesNotExist(){
         given()
@@ -213,6 +516,22 @@ public class AvatarControllerTests {
                 .statusCode(HttpStatus.NOT_FOUND.value());
     }
 
+    @Test
+    void getUserAvatar_ReturnsNotFound_WhenLegacyAvatarObjectIsMissing(){
+        String avatarId = uuidService.generate();
+        avatarMetadataRepository.save(AvatarMetadata.builder()
+                .id(avatarId)
+                .avatarPath("users/123/avatar/" + avatarId + ".jpg")
+                .build());
+
+        given()
+                .when()
+                .get("/{avatarId}", avatarId)
+                .then()
+                .log().headers()
+                .statusCode(HttpStatus.NOT_FOUND.value());
+    }
+
     @Test
     void updateUserAvatar_UpdatesUserAvatar_WhenUserExistsAndDoesNotHaveAvatar() {
         String userId = uuidService.generate();
@@ -340,6 +659,57 @@ public class AvatarControllerTests {
         assertEquals(user.getAbout(), result.getAbout());
         assertNotEquals(avatarId, result.getAvatarImageId());
         assertEquals(5, result.getAnnouncementsCount());
+        assertNotNull(avatarMetadataRepository.findById(avatarId).orElseThrow().getSupersededAt());
+    }
+
+    @Test
+    void updateUserAvatar_ReturnsBadRequest_WhenFileIsNotAnImage() {
+        String userId = uuidService.generate();
+        User user = User.builder()
+                .id(userId)
+                .nickname("johndoe")
+                .registeredAt(ZonedDateTime.now())
+                .build();
+        userRepository.save(user);
+
+        String accessToken = jwtService.generateAccess(user);
+
+        given()
+                .contentType(ContentType.MULTIPART)
+                .header("Authorization", "Bearer " + accessToken)
+                .multiPart("avatar", "test-avatar.jpg", "definitely not a jpeg".getBytes(), "image/jpeg")
+                .when()
+                .post("/{userId}", userId)
+                .then()
+                .log().body()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+
+        assertNull(userRepository.findById(userId).orElseThrow().getAvatarImageId());
+    }
+
+    @Test
+    void updateUserAvatar_ReturnsPayloadTooLarge_WhenStreamedAvatarExceedsLimit() throws IOException {
+        String userId = uuidService.generate();
+        User user = User.builder()
+                .id(userId)
+                .nickname("johndoe")
+                .registeredAt(ZonedDateTime.now())
+                .build();
+        userRepository.save(user);
+
+        byte[] image = Files.readAllBytes(Paths.get("src/test/resources/test-avatar.jpg"));
+        byte[] oversized = Arrays.copyOf(image, 5 * 1024 * 1024 + 1024);
+
+        given()
+                .contentType(ContentType.MULTIPART)
+                .header("Authorization", "Bearer " + jwtService.generateAccess(user))
+                .multiPart("avatar", "test-avatar.jpg", oversized, "image/jpeg")
+                .when()
+                .post("/{userId}", userId)
+                .then()
+                .statusCode(HttpStatus.PAYLOAD_TOO_LARGE.value());
+
+        assertNull(userRepository.findById(userId).orElseThrow().getAvatarImageId());
     }
 
     @Test
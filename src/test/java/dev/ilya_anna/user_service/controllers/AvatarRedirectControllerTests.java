@@ -0,0 +1,201 @@
+package dev.ilya_anna.user_service.controllers;
+
+import com.redis.testcontainers.RedisContainer;
+import dev.ilya_anna.user_service.entities.AvatarMetadata;
+import dev.ilya_anna.user_service.repositories.AvatarMetadataRepository;
+import dev.ilya_anna.user_service.services.UuidService;
+import io.minio.*;
+import io.restassured.RestAssured;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.kafka.KafkaContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Testcontainers
+@DirtiesContext
+@Slf4j
+@SpringBootTest(
+        properties = {
+                "app.jwt.issuer=user_service",
+                "app.jwt.subject=user_details",
+                "app.jwt.access.duration=1000",
+                "app.jwt.refresh.duration=2000",
+                "app.jwt.access.secret=access_secret",
+                "app.jwt.refresh.secret=refresh_secret",
+                "eureka.client.enabled=false",
+                "app.uuid.seed=user_service",
+                "app.minio.endpoint=http://localhost:9000",
+                "app.minio.accessKey=minioadmin",
+                "app.minio.secretKey=minioadmin",
+                "app.gateway.uri=http://localhost:8080",
+                "app.avatar.delivery.mode=redirect",
+                "app.avatar.delivery.url-ttl=120",
+                "app.avatar.delivery.url-refresh-before=30"
+        },
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class AvatarRedirectControllerTests {
+    @Container
+    @ServiceConnection
+    static KafkaContainer kafka = new KafkaContainer("apache/kafka-native:3.8.0");
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName("user_service")
+            .withUsername("postgres")
+            .withPassword("postgres")
+            .withInitScript("init.sql");
+
+    @Container
+    static MinIOContainer minio = new MinIOContainer(DockerImageName.parse("minio/minio:RELEASE.2023-09-04T19-57-37Z"))
+            .withExposedPorts(9000)
+            .withEnv("MINIO_ROOT_USER", "minioadmin")
+            .withEnv("MINIO_ROOT_PASSWORD", "minioadmin")
+            .withCommand("server /data");
+
+    @Container
+    @ServiceConnection
+    static RedisContainer redis = new RedisContainer(DockerImageName.parse("redis:latest"));
+
+    @BeforeAll
+    static void beforeAll() {
+        redis.start();
+        postgres.start();
+        minio.start();
+
+        MinioClient minioClient = MinioClient.builder()
+                .endpoint("http://" + minio.getHost() + ":" + minio.getFirstMappedPort())
+                .credentials("minioadmin", "minioadmin")
+                .build();
+
+        try{
+            if (!minioClient.bucketExists(BucketExistsArgs.builder().bucket("avatars").build())) {
+                minioClient.makeBucket(MakeBucketArgs.builder().bucket("avatars").build());
+            }
+        } catch (Exception e){
+            log.error("An exception during creating bucket in minio ", e);
+        }
+    }
+
+    @AfterAll
+    static void afterAll() {
+        redis.stop();
+        postgres.stop();
+        minio.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.redis.database", () -> "0");
+        registry.add("spring.data.redis.host", redis::getHost);
+        registry.add("spring.data.redis.port", redis::getFirstMappedPort);
+        registry.add("spring.data.redis.password", () -> "password");
+        registry.add("app.minio.endpoint", () ->
+                String.format("http://%s:%d", minio.getHost(), minio.getFirstMappedPort()));
+        registry.add("app.minio.accessKey", () -> "minioadmin");
+        registry.add("app.minio.secretKey", () -> "minioadmin");
+    }
+
+    @Autowired
+    private AvatarMetadataRepository avatarMetadataRepository;
+
+    @Autowired
+    private UuidService uuidService;
+
+    @Autowired
+    private MinioClient minioClient;
+
+    @LocalServerPort
+    private Integer port;
+
+    @BeforeEach
+    void beforeEach(){
+        RestAssured.baseURI = "http://localhost:" + port + "/api/v1/user-avatars";
+        avatarMetadataRepository.deleteAll();
+    }
+
+    @Test
+    void getUserAvatar_RedirectsToPresignedUrl_WhenRedirectModeIsEnabled() throws Exception {
+        byte[] testImage = Files.readAllBytes(Paths.get("src/test/resources/test-avatar.jpg"));
+        String avatarId = uuidService.generate();
+        String avatarPath = "users/123/avatar/" + avatarId + ".jpg";
+        avatarMetadataRepository.save(AvatarMetadata.builder()
+                .id(avatarId)
+                .avatarPath(avatarPath)
+                .contentType("image/jpeg")
+                .contentLength((long) testImage.length)
+                .etag(avatarId)
+                .build());
+        minioClient.putObject(
+                PutObjectArgs.builder()
+                        .bucket("avatars")
+                        .object(avatarPath)
+                        .stream(new ByteArrayInputStream(testImage), testImage.length, -1)
+                        .build());
+
+        String location = given()
+                .redirects().follow(false)
+                .when()
+                .get("/{avatarId}", avatarId)
+                .then()
+                .statusCode(HttpStatus.FOUND.value())
+                .header("Cache-Control", allOf(containsString("private"), containsString("max-age=30")))
+                .header("Location", allOf(
+                        containsString("/avatars/" + avatarPath),
+                        containsString("X-Amz-Signature="),
+                        containsString("X-Amz-Expires=120")))
+                .extract().header("Location");
+
+        String secondLocation = given()
+                .redirects().follow(false)
+                .when()
+                .get("/{avatarId}", avatarId)
+                .then()
+                .statusCode(HttpStatus.FOUND.value())
+                .extract().header("Location");
+        assertEquals(location, secondLocation);
+
+        byte[] content = given()
+                .urlEncodingEnabled(false)
+                .when()
+                .get(location)
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract().body().asByteArray();
+        assertArrayEquals(testImage, content);
+    }
+
+    @Test
+    void getUserAvatar_ReturnsNotFound_WhenRedirectModeIsEnabledAndAvatarDoesNotExist() {
+        given()
+                .redirects().follow(false)
+                .when()
+                .get("/{avatarId}", "nonexistentAvatarId")
+                .then()
+                .statusCode(HttpStatus.NOT_FOUND.value());
+    }
+}
@@ -1,6 +1,11 @@
 package dev.ilya_anna.user_service.controllers;
 
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
 import com.redis.testcontainers.RedisContainer;
+import dev.ilya_anna.user_service.caches.CacheInvalidationPublisher;
+import dev.ilya_anna.user_service.caches.TwoLevelCacheManager;
+import dev.ilya_anna.user_service.caches.UserProfileCache;
 import dev.ilya_anna.user_service.dto.UserDto;
 import dev.ilya_anna.user_service.dto.UserSettingsDto;
 import dev.ilya_anna.user_service.entities.User;
@@ -27,7 +32,16 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.http.HttpStatus;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.test.annotation.DirtiesContext;
@@ -42,14 +56,20 @@ import org.testcontainers.kafka.KafkaContainer;
 import org.testcontainers.utility.DockerImageName;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
+import java.nio.charset.StandardCharsets;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import static io.restassured.RestAssured.*;
+import static org.awaitility.Awaitility.await;
 
 @Testcontainers
 @DirtiesContext
@@ -71,6 +91,8 @@ import static io.restassured.RestAssured.*;
         },
         webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 public class UserControllerTests {
+    private static final String INVALIDATION_CHANNEL = "user-service:cache-invalidation";
+    private static final String USER_PROFILES_KEY_PREFIX = "user-service:v2:" + UserProfileCache.CACHE_NAME + "::";
 
     @Container
     @ServiceConnection
@@ -125,17 +147,49 @@ public class UserControllerTests {
         }
     }
 
+    @Getter
+    static class TestInvalidationListener implements MessageListener {
+        private final List<String> invalidationMessages = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onMessage(Message message, byte[] pattern) {
+            invalidationMessages.add(new String(message.getBody(), StandardCharsets.UTF_8));
+        }
+
+        public void clear() {
+            invalidationMessages.clear();
+        }
+    }
+
     @TestConfiguration
     static class Config {
         @Bean
         public TestConsumer testConsumer() {
             return new TestConsumer();
         }
+
+        @Bean
+        public TestInvalidationListener testInvalidationListener(
+                RedisMessageListenerContainer cacheInvalidationListenerContainer) {
+            TestInvalidationListener testInvalidationListener = new TestInvalidationListener();
+            cacheInvalidationListenerContainer.addMessageListener(testInvalidationListener,
+                    new ChannelTopic(INVALIDATION_CHANNEL));
+            return testInvalidationListener;
+        }
     }
 
     @Autowired
     private TestConsumer testConsumer;
 
+    @Autowired
+    private TestInvalidationListener testInvalidationListener;
+
+    @Autowired
+    private TwoLevelCacheManager cacheManager;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -154,6 +208,12 @@ public class UserControllerTests {
     @Autowired
     private BlacklistService blacklistService;
 
+    @Autowired
+    private ConfigurableEnvironment environment;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
     @MockitoBean
     private RestTemplate restTemplate;
 
@@ -165,6 +225,7 @@ public class UserControllerTests {
         RestAssured.baseURI = "http://localhost:" + port + "/api/v1/user";
         userRepository.deleteAll();
         userSettingsRepository.deleteAll();
+        testInvalidationListener.clear();
     }
 
     @Test
@@ -277,7 +338,7 @@ public class UserControllerTests {
         String accessToken = jwtService.generateAccess(user);
 
         UserSignOutEvent userSignOutEvent = new UserSignOutEvent(uuidService.generate(), userId, ZonedDateTime.now(ZoneId.systemDefault()));
-        blacklistService.addToBlacklist(userSignOutEvent);
+        blacklistService.addToBlacklist(List.of(userSignOutEvent));
 
         when(restTemplate.getForObject(
                 ArgumentMatchers.anyString(),
@@ -294,6 +355,40 @@ public class UserControllerTests {
                 .statusCode(HttpStatus.FORBIDDEN.value());
     }
 
+    @Test
+    void getUserAllInfo_ReturnsUserInfo_WhenUserJwtIsIssuedAfterSignOut() {
+        String userId = uuidService.generate();
+        User user = User.builder()
+                .id(userId)
+                .name("John")
+                .nickname("johndoe")
+                .registeredAt(ZonedDateTime.now(ZoneId.systemDefault()))
+                .build();
+        userRepository.save(user);
+
+        UserSignOutEvent userSignOutEvent = new UserSignOutEvent(uuidService.generate(), userId,
+                ZonedDateTime.now(ZoneId.systemDefault()).minusSeconds(10));
+        blacklistService.addToBlacklist(List.of(userSignOutEvent));
+
+        String accessToken = jwtService.generateAccess(user);
+
+        when(restTemplate.getForObject(
+                ArgumentMatchers.anyString(),
+                ArgumentMatchers.eq(Integer.class),
+                Optional.ofNullable(ArgumentMatchers.any())))
+                .thenReturn(5);
+
+        UserDto result = given()
+                .header("Authorization", "Bearer " + accessToken)
+                .when()
+                .get("/all-info/{userId}", userId)
+                .then()
+                .log().body()
+                .statusCode(HttpStatus.OK.value()).extract().as(UserDto.class);
+
+        assertEquals(user.getName(), result.getName());
+    }
+
     @Test
     void getUser_ReturnsVisibleUserInfo_WhenUserExists() {
         String userId = uuidService.generate();
@@ -360,6 +455,53 @@ public class UserControllerTests {
 
 
 
+    @Test
+    void getUsers_ReturnsVisibleUsersInfoInRequestedOrder_WhenSomeUsersExist() {
+        String firstUserId = uuidService.generate();
+        User firstUser = User.builder()
+                .id(firstUserId)
+                .name("John")
+                .surname("Doe")
+                .nickname("johndoe")
+                .registeredAt(ZonedDateTime.now(ZoneId.systemDefault()))
+                .build();
+        userRepository.save(firstUser);
+
+        String secondUserId = uuidService.generate();
+        User secondUser = User.builder()
+                .id(secondUserId)
+                .name("Jane")
+                .surname("Roe")
+                .nickname("janeroe")
+                .registeredAt(ZonedDateTime.now(ZoneId.systemDefault()))
+                .build();
+        userRepository.save(secondUser);
+
+        userSettingsService.updateUserSettings(secondUserId, UserSettingsDto.builder()
+                .nameVisibility(true)
+                .surnameVisibility(false)
+                .emailVisibility(true)
+                .phoneVisibility(true)
+                .addressVisibility(true)
+                .avatarVisibility(true)
+                .build());
+
+        UserDto[] result = given()
+                .contentType(ContentType.JSON)
+                .when()
+                .body(List.of(secondUserId, uuidService.generate(), firstUserId))
+                .post("/batch")
+                .then()
+                .log().body()
+                .statusCode(HttpStatus.OK.value()).extract().as(UserDto[].class);
+
+        assertEquals(2, result.length);
+        assertEquals("janeroe", result[0].getNickname());
+        assertNull(result[0].getSurname());
+        assertEquals("johndoe", result[1].getNickname());
+        assertEquals("Doe", result[1].getSurname());
+    }
+
     @Test
     void updateUser_UpdatesUserAndSendsEvent_WhenUserExists() {
         String userId = uuidService.generate();
@@ -413,6 +555,7 @@ public class UserControllerTests {
         assertEquals(user.getAvatarImageId(), result.getAvatarImageId());
         assertEquals(5, result.getAnnouncementsCount());
 
+        await().atMost(30, TimeUnit.SECONDS).until(() -> !testConsumer.userChangedEventMessages.isEmpty());
         UserChangedEvent userChangedEvent = UserChangedEvent.fromMap(testConsumer.userChangedEventMessages.getFirst());
         assertEquals(userId, userChangedEvent.getId());
         assertEquals(userId, userChangedEvent.getUserId());
@@ -490,4 +633,193 @@ public class UserControllerTests {
                 .log().body()
                 .statusCode(HttpStatus.FORBIDDEN.value());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getUser_ReadsProfileThroughLocalAndRedisCache_WhenProfileIsCached() {
+        String userId = uuidService.generate();
+        User user = User.builder()
+                .id(userId)
+                .name("John")
+                .nickname("johndoe")
+                .registeredAt(ZonedDateTime.now(ZoneId.systemDefault()))
+                .build();
+        userRepository.save(user);
+
+        when(restTemplate.getForObject(
+                ArgumentMatchers.anyString(),
+                ArgumentMatchers.eq(Integer.class),
+                Optional.ofNullable(ArgumentMatchers.any())))
+                .thenReturn(5);
+
+        assertEquals("John", getUserName(userId));
+        assertTrue(redisTemplate.hasKey(USER_PROFILES_KEY_PREFIX + userId));
+
+        user.setName("Jack");
+        userRepository.save(user);
+
+        assertEquals("John", getUserName(userId));
+
+        cacheManager.evictLocal(UserProfileCache.CACHE_NAME, userId);
+        assertEquals("John", getUserName(userId));
+
+        redisTemplate.delete(USER_PROFILES_KEY_PREFIX + userId);
+        assertEquals("John", getUserName(userId));
+
+        cacheManager.evictLocal(UserProfileCache.CACHE_NAME, userId);
+        assertEquals("Jack", getUserName(userId));
+        assertTrue(redisTemplate.hasKey(USER_PROFILES_KEY_PREFIX + userId));
+    }
+
+    @Test
+    void updateUser_EvictsCachedProfileOnEveryNode_WhenUserExists() {
+        String userId = uuidService.generate();
+        User user = User.builder()
+                .id(userId)
+                .name("John")
+                .nickname("johndoe")
+                .registeredAt(ZonedDateTime.now(ZoneId.systemDefault()))
+                .build();
+        userRepository.save(user);
+
+        String accessToken = jwtService.generateAccess(user);
+
+        when(restTemplate.getForObject(
+                ArgumentMatchers.anyString(),
+                ArgumentMatchers.eq(Integer.class),
+                Optional.ofNullable(ArgumentMatchers.any())))
+                .thenReturn(5);
+
+        assertEquals("John", getUserName(userId));
+        assertTrue(redisTemplate.hasKey(USER_PROFILES_KEY_PREFIX + userId));
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + accessToken)
+                .when()
+                .body(Map.of(
+                        "name", "newName",
+                        "surname", "newSurname",
+                        "nickname", "new-nickname",
+                        "email", "new@mail.ru",
+                        "phone", "+7777777777",
+                        "address", "new street",
+                        "about", "new about"
+                ))
+                .put("/{userId}", userId)
+                .then()
+                .log().body()
+                .statusCode(HttpStatus.OK.value());
+
+        assertFalse(redisTemplate.hasKey(USER_PROFILES_KEY_PREFIX + userId));
+        await().atMost(30, TimeUnit.SECONDS).until(() -> testInvalidationListener.getInvalidationMessages()
+                .contains(UserProfileCache.CACHE_NAME + CacheInvalidationPublisher.SEPARATOR + userId));
+        assertEquals("newName", getUserName(userId));
+    }
+
+    @Test
+    void getUser_DropsLocalProfile_WhenInvalidationIsReceivedFromAnotherNode() {
+        String userId = uuidService.generate();
+        User user = User.builder()
+                .id(userId)
+                .name("John")
+                .nickname("johndoe")
+                .registeredAt(ZonedDateTime.now(ZoneId.systemDefault()))
+                .build();
+        userRepository.save(user);
+
+        when(restTemplate.getForObject(
+                ArgumentMatchers.anyString(),
+                ArgumentMatchers.eq(Integer.class),
+                Optional.ofNullable(ArgumentMatchers.any())))
+                .thenReturn(5);
+
+        assertEquals("John", getUserName(userId));
+
+        user.setName("Jack");
+        userRepository.save(user);
+        redisTemplate.delete(USER_PROFILES_KEY_PREFIX + userId);
+
+        assertEquals("John", getUserName(userId));
+
+        redisTemplate.convertAndSend(INVALIDATION_CHANNEL,
+                UserProfileCache.CACHE_NAME + CacheInvalidationPublisher.SEPARATOR + userId);
+
+        await().atMost(30, TimeUnit.SECONDS).untilAsserted(() -> assertEquals("Jack", getUserName(userId)));
+    }
+
+    private String getUserName(String userId) {
+        return given()
+                .when()
+                .get("/{userId}", userId)
+                .then()
+                .statusCode(HttpStatus.OK.value()).extract().as(UserDto.class).getName();
+    }
+
+    @Test
+    void getUserAllInfo_AcceptsTokensOfBothSecrets_WhenAccessSecretIsRotated() {
+        String userId = uuidService.generate();
+        User user = User.builder()
+                .id(userId)
+                .nickname("johndoe")
+                .registeredAt(ZonedDateTime.now(ZoneId.systemDefault()))
+                .build();
+        userRepository.save(user);
+
+        when(restTemplate.getForObject(
+                ArgumentMatchers.anyString(),
+                ArgumentMatchers.eq(Integer.class),
+                Optional.ofNullable(ArgumentMatchers.any())))
+                .thenReturn(5);
+
+        String previousAccessToken = jwtService.generateAccess(user);
+
+        environment.getPropertySources().addFirst(new MapPropertySource("rotatedJwtSecret",
+                Map.of("app.jwt.access.secret", "rotated_access_secret")));
+        try {
+            applicationEventPublisher.publishEvent(new EnvironmentChangeEvent(Set.of("app.jwt.access.secret")));
+
+            String rotatedAccessToken = jwtService.generateAccess(user);
+            JWT.require(Algorithm.HMAC256("rotated_access_secret")).build().verify(rotatedAccessToken);
+
+            for (String accessToken : List.of(previousAccessToken, rotatedAccessToken)) {
+                given()
+                        .header("Authorization", "Bearer " + accessToken)
+                        .when()
+                        .get("/all-info/{userId}", userId)
+                        .then()
+                        .log().body()
+                        .statusCode(HttpStatus.OK.value());
+            }
+        } finally {
+            environment.getPropertySources().remove("rotatedJwtSecret");
+            applicationEventPublisher.publishEvent(new EnvironmentChangeEvent(Set.of("app.jwt.access.secret")));
+        }
+    }
+
+    @Test
+    void getUserAllInfo_ReturnsForbidden_WhenTokenIsSignedWithUnknownSecret() {
+        String userId = uuidService.generate();
+        User user = User.builder()
+                .id(userId)
+                .nickname("johndoe")
+                .registeredAt(ZonedDateTime.now(ZoneId.systemDefault()))
+                .build();
+        userRepository.save(user);
+
+        String accessToken = JWT.create()
+                .withIssuer("user_service")
+                .withSubject("user_details")
+                .withIssuedAt(ZonedDateTime.now().toInstant())
+                .withExpiresAt(ZonedDateTime.now().plusSeconds(1000).toInstant())
+                .withClaim("userId", userId)
+                .sign(Algorithm.HMAC256("unknown_secret"));
+
+        given()
+                .header("Authorization", "Bearer " + accessToken)
+                .when()
+                .get("/all-info/{userId}", userId)
+                .then()
+                .log().body()
+                .statusCode(HttpStatus.FORBIDDEN.value());
+    }
+}
@@ -1,15 +1,19 @@
 package dev.ilya_anna.user_service.controllers;
 
 import com.redis.testcontainers.RedisContainer;
+import dev.ilya_anna.user_service.caches.CacheInvalidationPublisher;
+import dev.ilya_anna.user_service.caches.UserProfileCache;
 import dev.ilya_anna.user_service.dto.UserSettingsDto;
 import dev.ilya_anna.user_service.entities.User;
 import dev.ilya_anna.user_service.repositories.UserRepository;
 import dev.ilya_anna.user_service.repositories.UserSettingsRepository;
 import dev.ilya_anna.user_service.services.JwtService;
+import dev.ilya_anna.user_service.services.UserService;
 import dev.ilya_anna.user_service.services.UserSettingsService;
 import dev.ilya_anna.user_service.services.UuidService;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -17,24 +21,38 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.client.RestTemplate;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.kafka.KafkaContainer;
 import org.testcontainers.utility.DockerImageName;
 
+import java.nio.charset.StandardCharsets;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import static io.restassured.RestAssured.given;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.awaitility.Awaitility.await;
 
 @Testcontainers
 @DirtiesContext
@@ -56,6 +74,9 @@ import static org.junit.jupiter.api.Assertions.*;
         },
         webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 public class UserSettingsControllerTests {
+    private static final String INVALIDATION_CHANNEL = "user-service:cache-invalidation";
+    private static final String USER_PROFILES_KEY_PREFIX = "user-service:v2:" + UserProfileCache.CACHE_NAME + "::";
+
     @Container
     @ServiceConnection
     static KafkaContainer kafka = new KafkaContainer("apache/kafka-native:3.8.0");
@@ -94,6 +115,35 @@ public class UserSettingsControllerTests {
         registry.add("spring.data.redis.password", () -> "password");
     }
 
+    @Getter
+    static class TestInvalidationListener implements MessageListener {
+        private final List<String> invalidationMessages = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onMessage(Message message, byte[] pattern) {
+            invalidationMessages.add(new String(message.getBody(), StandardCharsets.UTF_8));
+        }
+
+        public void clear() {
+            invalidationMessages.clear();
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        public TestInvalidationListener testInvalidationListener(
+                RedisMessageListenerContainer cacheInvalidationListenerContainer) {
+            TestInvalidationListener testInvalidationListener = new TestInvalidationListener();
+            cacheInvalidationListenerContainer.addMessageListener(testInvalidationListener,
+                    new ChannelTopic(INVALIDATION_CHANNEL));
+            return testInvalidationListener;
+        }
+    }
+
+    @Autowired
+    private TestInvalidationListener testInvalidationListener;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -109,6 +159,15 @@ public class UserSettingsControllerTests {
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @MockitoBean
+    private RestTemplate restTemplate;
+
     @LocalServerPort
     private Integer port;
 
@@ -117,6 +176,7 @@ public class UserSettingsControllerTests {
         RestAssured.baseURI = "http://localhost:" + port + "/api/v1/user-settings";
         userRepository.deleteAll();
         userSettingsRepository.deleteAll();
+        testInvalidationListener.clear();
     }
 
     @Test
@@ -228,6 +288,45 @@ public class UserSettingsControllerTests {
         assertFalse(result.isAvatarVisibility());
     }
 
+    @Test
+    void updateUserSettings_EvictsCachedProfileOnEveryNode_WhenUserExists() {
+        String userId = uuidService.generate();
+        User user = User.builder()
+                .id(userId)
+                .name("John")
+                .nickname("johndoe")
+                .registeredAt(ZonedDateTime.now(ZoneId.systemDefault()))
+                .build();
+        userRepository.save(user);
+
+        String accessToken = jwtService.generateAccess(user);
+
+        assertEquals("John", userService.getUser(userId).getName());
+        assertTrue(redisTemplate.hasKey(USER_PROFILES_KEY_PREFIX + userId));
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + accessToken)
+                .when()
+                .body(Map.of(
+                        "nameVisibility", false,
+                        "surnameVisibility", true,
+                        "emailVisibility", true,
+                        "phoneVisibility", true,
+                        "addressVisibility", true,
+                        "avatarVisibility", true
+                ))
+                .put("/{userId}", userId)
+                .then()
+                .log().body()
+                .statusCode(HttpStatus.OK.value());
+
+        assertFalse(redisTemplate.hasKey(USER_PROFILES_KEY_PREFIX + userId));
+        await().atMost(30, TimeUnit.SECONDS).until(() -> testInvalidationListener.getInvalidationMessages()
+                .contains(UserProfileCache.CACHE_NAME + CacheInvalidationPublisher.SEPARATOR + userId));
+        assertNull(userService.getUser(userId).getName());
+    }
+
     @Test
     void updateUserSettings_ReturnsNotFound_WhenUserDoesNotExist() {
         String userId = uuidService.generate();
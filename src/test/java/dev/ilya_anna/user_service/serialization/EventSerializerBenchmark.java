@@ -0,0 +1,93 @@
+package dev.ilya_anna.user_service.serialization;
+
+import dev.ilya_anna.user_service.events.UserCreatedEvent;
+import dev.ilya_anna.user_service.events.UserSignOutEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the binary codec with the json path of {@link EventSerializer}, not part of the regular suite.
+ * Run with {@code mvn test -Dtest=EventSerializerBenchmark -Dbenchmark=true}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class EventSerializerBenchmark {
+    private static final int WARM_UP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+    private static final int ITERATIONS = 50_000;
+
+    private final EventSerializer binarySerializer = new EventSerializer(EventFormat.BINARY);
+    private final EventSerializer jsonSerializer = new EventSerializer(EventFormat.JSON);
+    private final EventDeserializer deserializer = new EventDeserializer();
+
+    private final UserCreatedEvent userCreatedEvent = UserCreatedEvent.builder()
+            .id("0f8fad5b-d9cb-469f-a165-70867728950e")
+            .userId("7c9e6679-7425-40de-944b-e07fc1f90ae7")
+            .name("Иван")
+            .surname("Doe")
+            .nickname("johndoe")
+            .phone("+1234567890")
+            .email("john@example.com")
+            .time(ZonedDateTime.of(2025, 3, 1, 12, 30, 15, 123456789, ZoneId.of("Europe/Moscow")))
+            .build();
+
+    private final UserSignOutEvent userSignOutEvent = new UserSignOutEvent(
+            "0f8fad5b-d9cb-469f-a165-70867728950e", "7c9e6679-7425-40de-944b-e07fc1f90ae7",
+            ZonedDateTime.of(2025, 3, 1, 12, 30, 15, 0, ZoneId.of("UTC")));
+
+    @Test
+    void userCreatedEvent() {
+        compare(UserCreatedEvent.TOPIC, userCreatedEvent);
+    }
+
+    @Test
+    void userSignOutEvent() {
+        compare(UserSignOutEvent.TOPIC, userSignOutEvent);
+    }
+
+    private void compare(String topic, Object event) {
+        byte[] json = jsonSerializer.serialize(topic, event);
+        byte[] binary = binarySerializer.serialize(topic, event);
+        assertEquals(event, deserializer.deserialize(topic, json));
+        assertEquals(event, deserializer.deserialize(topic, binary));
+
+        String name = event.getClass().getSimpleName();
+        log.info("{} size: json {} bytes, binary {} bytes", name, json.length, binary.length);
+        report(name, "serialize json", measure(() -> jsonSerializer.serialize(topic, event)));
+        report(name, "serialize binary", measure(() -> binarySerializer.serialize(topic, event)));
+        report(name, "deserialize json", measure(() -> deserializer.deserialize(topic, json)));
+        report(name, "deserialize binary", measure(() -> deserializer.deserialize(topic, binary)));
+    }
+
+    private static void report(String event, String operation, double[] nanosPerOp) {
+        log.info("{} {}: median {} ns/op, min {} ns/op", event, operation,
+                String.format("%.0f", nanosPerOp[nanosPerOp.length / 2]), String.format("%.0f", nanosPerOp[0]));
+    }
+
+    private static double[] measure(Supplier<Object> operation) {
+        Object sink = null;
+        double[] rounds = new double[ROUNDS];
+        for (int round = -WARM_UP_ROUNDS; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink = operation.get();
+            }
+            if (round >= 0) {
+                rounds[round] = (double) (System.nanoTime() - start) / ITERATIONS;
+            }
+        }
+        if (sink == null) {
+            throw new IllegalStateException("Benchmarked operation returned null");
+        }
+        Arrays.sort(rounds);
+        return rounds;
+    }
+}
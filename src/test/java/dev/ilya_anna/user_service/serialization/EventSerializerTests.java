@@ -0,0 +1,72 @@
+package dev.ilya_anna.user_service.serialization;
+
+import dev.ilya_anna.user_service.events.UserChangedEvent;
+import dev.ilya_anna.user_service.events.UserCreatedEvent;
+import dev.ilya_anna.user_service.events.UserSignOutEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+public class EventSerializerTests {
+    private final EventSerializer binarySerializer = new EventSerializer(EventFormat.BINARY);
+    private final EventSerializer jsonSerializer = new EventSerializer(EventFormat.JSON);
+    private final EventDeserializer deserializer = new EventDeserializer();
+
+    private final UserCreatedEvent userCreatedEvent = UserCreatedEvent.builder()
+            .id("eventId")
+            .userId("userId")
+            .name("Иван")
+            .surname("Doe")
+            .nickname("johndoe")
+            .phone("+1234567890")
+            .email("john@example.com")
+            .time(ZonedDateTime.of(2025, 3, 1, 12, 30, 15, 123456789, ZoneId.of("Europe/Moscow")))
+            .build();
+
+    @Test
+    void deserialize_ReturnsSameEvent_WhenEventIsSerializedInBinaryFormat() {
+        byte[] data = binarySerializer.serialize(UserCreatedEvent.TOPIC, userCreatedEvent);
+
+        assertEquals(BinaryEventCodec.MAGIC, data[0]);
+        assertEquals(userCreatedEvent, deserializer.deserialize(UserCreatedEvent.TOPIC, data));
+    }
+
+    @Test
+    void deserialize_ReturnsSameEvent_WhenEventHasNullFields() {
+        UserChangedEvent userChangedEvent = UserChangedEvent.builder()
+                .id("eventId")
+                .userId("userId")
+                .nickname("johndoe")
+                .build();
+
+        byte[] data = binarySerializer.serialize(UserChangedEvent.TOPIC, userChangedEvent);
+
+        assertEquals(userChangedEvent, deserializer.deserialize(UserChangedEvent.TOPIC, data));
+    }
+
+    @Test
+    void deserialize_ReturnsTypedEvent_WhenEventIsSerializedAsJsonMap() {
+        UserSignOutEvent userSignOutEvent = new UserSignOutEvent("eventId", "userId", ZonedDateTime.now());
+        byte[] data = new JsonSerializer<Map<String, Object>>()
+                .serialize(UserSignOutEvent.TOPIC, UserSignOutEvent.toMap(userSignOutEvent));
+
+        assertEquals(userSignOutEvent, deserializer.deserialize(UserSignOutEvent.TOPIC, data));
+    }
+
+    @Test
+    void serialize_ProducesSmallerPayloadThanJsonMap() {
+        byte[] binary = binarySerializer.serialize(UserCreatedEvent.TOPIC, userCreatedEvent);
+        byte[] json = jsonSerializer.serialize(UserCreatedEvent.TOPIC, userCreatedEvent);
+
+        log.info("UserCreatedEvent size: binary {} bytes, json {} bytes", binary.length, json.length);
+        assertTrue(binary.length < json.length);
+    }
+}
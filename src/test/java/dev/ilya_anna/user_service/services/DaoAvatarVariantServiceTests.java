@@ -0,0 +1,98 @@
+package dev.ilya_anna.user_service.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DaoAvatarVariantServiceTests {
+
+    @Test
+    void readExifOrientation_ReadsTag_WhenTiffIsBigEndian() {
+        assertEquals(6, DaoAvatarVariantService.readExifOrientation(jpegWithOrientation(6, false)));
+    }
+
+    @Test
+    void readExifOrientation_ReadsTag_WhenTiffIsLittleEndian() {
+        assertEquals(8, DaoAvatarVariantService.readExifOrientation(jpegWithOrientation(8, true)));
+    }
+
+    @Test
+    void readExifOrientation_ReturnsDefault_WhenThereIsNoExif() {
+        byte[] jpeg = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xDA, 0, 2};
+
+        assertEquals(1, DaoAvatarVariantService.readExifOrientation(jpeg));
+    }
+
+    @Test
+    void orient_RotatesClockwise_WhenOrientationIsSix() {
+        BufferedImage source = new BufferedImage(3, 2, BufferedImage.TYPE_INT_RGB);
+        source.setRGB(0, 0, 0xFF0000);
+
+        BufferedImage oriented = DaoAvatarVariantService.orient(source, 6);
+
+        assertEquals(2, oriented.getWidth());
+        assertEquals(3, oriented.getHeight());
+        assertEquals(0xFF0000, oriented.getRGB(1, 0) & 0xFFFFFF);
+    }
+
+    @Test
+    void orient_RotatesCounterClockwise_WhenOrientationIsEight() {
+        BufferedImage source = new BufferedImage(3, 2, BufferedImage.TYPE_INT_RGB);
+        source.setRGB(0, 0, 0xFF0000);
+
+        BufferedImage oriented = DaoAvatarVariantService.orient(source, 8);
+
+        assertEquals(2, oriented.getWidth());
+        assertEquals(3, oriented.getHeight());
+        assertEquals(0xFF0000, oriented.getRGB(0, 2) & 0xFFFFFF);
+    }
+
+    private static byte[] jpegWithOrientation(int orientation, boolean littleEndian) {
+        ByteArrayOutputStream tiff = new ByteArrayOutputStream();
+        tiff.writeBytes(littleEndian ? new byte[]{'I', 'I'} : new byte[]{'M', 'M'});
+        writeShort(tiff, 42, littleEndian);
+        writeInt(tiff, 8, littleEndian);
+        writeShort(tiff, 2, littleEndian);
+        writeShort(tiff, 0x010F, littleEndian);
+        writeShort(tiff, 2, littleEndian);
+        writeInt(tiff, 4, littleEndian);
+        writeInt(tiff, 0, littleEndian);
+        writeShort(tiff, 0x0112, littleEndian);
+        writeShort(tiff, 3, littleEndian);
+        writeInt(tiff, 1, littleEndian);
+        writeShort(tiff, orientation, littleEndian);
+        writeShort(tiff, 0, littleEndian);
+        writeInt(tiff, 0, littleEndian);
+
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        jpeg.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE1});
+        writeShort(jpeg, 2 + 6 + tiff.size(), false);
+        jpeg.writeBytes(new byte[]{'E', 'x', 'i', 'f', 0, 0});
+        jpeg.writeBytes(tiff.toByteArray());
+        jpeg.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xDA, 0, 2});
+        return jpeg.toByteArray();
+    }
+
+    private static void writeShort(ByteArrayOutputStream out, int value, boolean littleEndian) {
+        if (littleEndian) {
+            out.write(value & 0xFF);
+            out.write(value >> 8 & 0xFF);
+        } else {
+            out.write(value >> 8 & 0xFF);
+            out.write(value & 0xFF);
+        }
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value, boolean littleEndian) {
+        if (littleEndian) {
+            writeShort(out, value & 0xFFFF, true);
+            writeShort(out, value >>> 16, true);
+        } else {
+            writeShort(out, value >>> 16, false);
+            writeShort(out, value & 0xFFFF, false);
+        }
+    }
+}
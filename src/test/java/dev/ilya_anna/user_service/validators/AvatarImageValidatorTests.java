@@ -0,0 +1,132 @@
+package dev.ilya_anna.user_service.validators;
+
+import dev.ilya_anna.user_service.exceptions.AvatarTooLargeException;
+import dev.ilya_anna.user_service.exceptions.InvalidImageFormatException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AvatarImageValidatorTests {
+
+    @Test
+    void validate_StreamsJpeg_WhenMetadataSegmentsPrecedeFrameHeader() throws IOException {
+        AvatarImageValidator validator = createValidator(5 * 1024 * 1024);
+        byte[] jpeg = jpeg(200_000, 640, 480);
+
+        ValidatedImage image = validator.validate(new ByteArrayInputStream(jpeg), jpeg.length);
+
+        assertEquals(AvatarImageType.JPEG, image.type());
+        assertArrayEquals(jpeg, image.content().readAllBytes());
+    }
+
+    @Test
+    void validate_StreamsPng() throws IOException {
+        AvatarImageValidator validator = createValidator(5 * 1024 * 1024);
+        byte[] png = png(640, 480);
+
+        ValidatedImage image = validator.validate(new ByteArrayInputStream(png), png.length);
+
+        assertEquals(AvatarImageType.PNG, image.type());
+        assertArrayEquals(png, image.content().readAllBytes());
+    }
+
+    @Test
+    void validate_AbortsStream_WhenFrameDimensionsExceedLimit() throws IOException {
+        AvatarImageValidator validator = createValidator(5 * 1024 * 1024);
+        byte[] jpeg = jpeg(200_000, 10_000, 480);
+
+        ValidatedImage image = validator.validate(new ByteArrayInputStream(jpeg), jpeg.length);
+
+        assertThrows(AvatarTooLargeException.class, () -> image.content().readAllBytes());
+    }
+
+    @Test
+    void validate_AbortsStream_WhenJpegEndsBeforeFrameHeader() throws IOException {
+        AvatarImageValidator validator = createValidator(5 * 1024 * 1024);
+        byte[] jpeg = Arrays.copyOf(jpeg(200_000, 640, 480), 100_000);
+
+        ValidatedImage image = validator.validate(new ByteArrayInputStream(jpeg), jpeg.length);
+
+        assertThrows(InvalidImageFormatException.class, () -> image.content().readAllBytes());
+    }
+
+    @Test
+    void validate_AbortsStream_WhenImageExceedsMaxSize() throws IOException {
+        AvatarImageValidator validator = createValidator(100_000);
+        byte[] jpeg = jpeg(200_000, 640, 480);
+
+        ValidatedImage image = validator.validate(new ByteArrayInputStream(jpeg), -1);
+
+        assertThrows(AvatarTooLargeException.class, () -> image.content().readAllBytes());
+    }
+
+    @Test
+    void validate_RejectsUnknownSignature() {
+        AvatarImageValidator validator = createValidator(5 * 1024 * 1024);
+        byte[] gif = "GIF89a".getBytes();
+
+        assertThrows(InvalidImageFormatException.class,
+                () -> validator.validate(new ByteArrayInputStream(gif), gif.length));
+    }
+
+    private static AvatarImageValidator createValidator(long maxSize) {
+        AvatarImageValidator validator = new AvatarImageValidator();
+        ReflectionTestUtils.setField(validator, "maxSize", maxSize);
+        ReflectionTestUtils.setField(validator, "maxPixels", 25_000_000L);
+        ReflectionTestUtils.setField(validator, "maxDimension", 8192);
+        return validator;
+    }
+
+    private static byte[] jpeg(int metadataSize, int width, int height) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0xFF);
+        out.write(0xD8);
+        int remaining = metadataSize;
+        while (remaining > 0) {
+            int payload = Math.min(remaining, 0xFFFF - 2);
+            out.write(0xFF);
+            out.write(0xE1);
+            writeShort(out, payload + 2);
+            out.writeBytes(new byte[payload]);
+            remaining -= payload;
+        }
+        out.write(0xFF);
+        out.write(0xC0);
+        writeShort(out, 11);
+        out.write(8);
+        writeShort(out, height);
+        writeShort(out, width);
+        out.writeBytes(new byte[]{1, 1, 0x11, 0});
+        out.write(0xFF);
+        out.write(0xD9);
+        return out.toByteArray();
+    }
+
+    private static byte[] png(int width, int height) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+        writeInt(out, 13);
+        out.writeBytes("IHDR".getBytes());
+        writeInt(out, width);
+        writeInt(out, height);
+        out.writeBytes(new byte[]{8, 6, 0, 0, 0});
+        out.writeBytes(new byte[1000]);
+        return out.toByteArray();
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        writeShort(out, value >>> 16);
+        writeShort(out, value & 0xFFFF);
+    }
+
+    private static void writeShort(ByteArrayOutputStream out, int value) {
+        out.write(value >> 8);
+        out.write(value & 0xFF);
+    }
+}
@@ -13,12 +13,7 @@ create table users (
 
 create table user_settings (
     id text primary key not null,
-    name_visibility boolean not null default true,
-    surname_visibility boolean not null default true,
-    email_visibility boolean not null default true,
-    phone_visibility boolean not null default true,
-    address_visibility boolean not null default true,
-    avatar_visibility boolean not null default true,
+    visibility_flags integer not null default 63,
     user_id text not null unique,
     constraint fk_user
         foreign key (user_id)
@@ -28,5 +23,27 @@ create table user_settings (
 
 create table avatars_metadata (
     id text primary key not null,
-    avatar_path text not null
-);
\ No newline at end of file
+    avatar_path text not null,
+    content_type text,
+    content_length bigint,
+    etag text,
+    ref_count integer not null default 1,
+    superseded_at timestamp with time zone,
+    original_id text
+);
+
+create index avatars_metadata_original_id_idx
+    on avatars_metadata (original_id)
+    where original_id is not null;
+
+create index avatars_metadata_superseded_at_idx
+    on avatars_metadata (superseded_at)
+    where superseded_at is not null;
+
+create table outbox_events (
+    id bigserial primary key,
+    topic text not null,
+    message_key text not null,
+    payload bytea not null,
+    created_at timestamp not null
+);